@@ -0,0 +1,85 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import com.google.gson.JsonObject;
+import io.supertokens.pluginInterface.KeyValueInfo;
+import io.supertokens.pluginInterface.KeyValueInfoWithLastUpdated;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Compares the throughput of AsyncStorage on a pool of platform threads against virtual threads, with many callers
+ * each reading a batch of key values in parallel. Virtual threads need Java 21, on older JVMs both runs use the pool.
+ * Needs a local mongod, see BenchmarkStorage. Run with ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(64)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class AsyncStorageBenchmark {
+
+    private static final int KEYS_PER_CALL = 32;
+
+    @Param({"false", "true"})
+    public boolean useVirtualThreads;
+
+    private Start start;
+    private String[] keys;
+
+    @Setup
+    public void setup() throws Exception {
+        JsonObject config = new JsonObject();
+        config.addProperty("mongodb_async_storage_use_virtual_threads", useVirtualThreads);
+        start = BenchmarkStorage.start(config);
+
+        keys = new String[KEYS_PER_CALL];
+        for (int i = 0; i < KEYS_PER_CALL; i++) {
+            keys[i] = "key" + i;
+            start.setKeyValue(TenantIdentifier.BASE_TENANT, keys[i], new KeyValueInfo("value" + i, i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkStorage.stop(start);
+    }
+
+    @Benchmark
+    public Map<String, KeyValueInfoWithLastUpdated> getKeyValues_Transaction() {
+        return start.getAsyncStorage().getKeyValues_Transaction(keys).join();
+    }
+}
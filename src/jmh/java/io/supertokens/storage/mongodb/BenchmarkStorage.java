@@ -0,0 +1,56 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import com.google.gson.JsonObject;
+import io.supertokens.pluginInterface.LOG_LEVEL;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+
+import java.util.Collections;
+import java.util.EnumSet;
+
+/*
+ * Starts the storage layer outside of the core, for the benchmarks that need a database. It connects to the MongoDB
+ * at MONGODB_BENCHMARK_URI (mongodb://localhost:27017 by default), and uses the supertokens_benchmark database, which
+ * is emptied when the benchmark stops.
+ *
+ * The Start instance is created and initialised in the same call, since initStorage only runs on the thread that
+ * created it.
+ */
+class BenchmarkStorage {
+
+    private static final String DEFAULT_CONNECTION_URI = "mongodb://localhost:27017";
+
+    static Start start(JsonObject config) throws Exception {
+        String connectionURI = System.getenv("MONGODB_BENCHMARK_URI");
+        config.addProperty("mongodb_connection_uri", connectionURI == null ? DEFAULT_CONNECTION_URI : connectionURI);
+        config.addProperty("mongodb_database_name", "supertokens_benchmark");
+
+        Start start = new Start();
+        start.constructor("benchmark", true, false);
+        start.loadConfig(config, EnumSet.of(LOG_LEVEL.ERROR), TenantIdentifier.BASE_TENANT);
+        start.initFileLogging("null", "null");
+        start.initStorage(true, Collections.emptyList());
+        return start;
+    }
+
+    static void stop(Start start) throws Exception {
+        start.deleteAllInformation();
+        start.close();
+    }
+}
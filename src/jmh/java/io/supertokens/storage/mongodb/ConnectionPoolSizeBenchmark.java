@@ -0,0 +1,77 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import com.google.gson.JsonObject;
+import io.supertokens.pluginInterface.KeyValueInfo;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Shows how the throughput of a simple read changes with mongodb_connection_pool_size when more threads run queries
+ * than there are connections. Needs a local mongod, see BenchmarkStorage. Run with ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(128)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ConnectionPoolSizeBenchmark {
+
+    @Param({"5", "20", "50", "100"})
+    public int connectionPoolSize;
+
+    private Start start;
+
+    @Setup
+    public void setup() throws Exception {
+        JsonObject config = new JsonObject();
+        config.addProperty("mongodb_connection_pool_size", connectionPoolSize);
+        // so that opening connections is not part of the measurement
+        config.addProperty("mongodb_minimum_idle_connections", connectionPoolSize);
+        start = BenchmarkStorage.start(config);
+
+        start.setKeyValue(TenantIdentifier.BASE_TENANT, "key", new KeyValueInfo("value", 1));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkStorage.stop(start);
+    }
+
+    @Benchmark
+    public KeyValueInfo getKeyValue() throws Exception {
+        return start.getKeyValue(TenantIdentifier.BASE_TENANT, "key");
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Measures resource lookups when many threads run queries at once, since every query looks up its Config,
+ * ConnectionPool and CollectionRegistry. Compares a hit and a miss in ResourceDistributor, and getOrCreateResource
+ * once the resource exists, against a lookup in a map that takes a lock on every read. Does not need MongoDB. Run
+ * with ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(64)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResourceDistributorBenchmark {
+
+    private static final ResourceDistributor.ResourceKey<StoredResource> STORED_KEY =
+            new ResourceDistributor.ResourceKey<>(StoredResource.class);
+    private static final ResourceDistributor.ResourceKey<MissingResource> MISSING_KEY =
+            new ResourceDistributor.ResourceKey<>(MissingResource.class);
+
+    private final ResourceDistributor resourceDistributor = new ResourceDistributor();
+    private final Map<ResourceDistributor.ResourceKey<?>, ResourceDistributor.SingletonResource> lockedMap =
+            Collections.synchronizedMap(new HashMap<>());
+
+    @Setup
+    public void setup() {
+        StoredResource resource = new StoredResource();
+        resourceDistributor.setResource(STORED_KEY, resource);
+        lockedMap.put(STORED_KEY, resource);
+    }
+
+    @Benchmark
+    public StoredResource getResourceHit() {
+        return resourceDistributor.getResource(STORED_KEY);
+    }
+
+    @Benchmark
+    public MissingResource getResourceMiss() {
+        return resourceDistributor.getResource(MISSING_KEY);
+    }
+
+    @Benchmark
+    public StoredResource getOrCreateResourceHit() {
+        return resourceDistributor.getOrCreateResource(STORED_KEY, StoredResource::new);
+    }
+
+    @Benchmark
+    public ResourceDistributor.SingletonResource lockedMapHit() {
+        return lockedMap.get(STORED_KEY);
+    }
+
+    public static class StoredResource extends ResourceDistributor.SingletonResource {
+    }
+
+    public static class MissingResource extends ResourceDistributor.SingletonResource {
+    }
+}
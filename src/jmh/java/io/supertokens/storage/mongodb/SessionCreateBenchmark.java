@@ -0,0 +1,80 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import com.google.gson.JsonObject;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Measures the sessions created per second during a login storm, with one insertOne per session (a batch size of 1)
+ * against the group commit of mongodb_session_create_batch_size. Needs a local mongod, see BenchmarkStorage. Run with
+ * ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(64)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class SessionCreateBenchmark {
+
+    @Param({"1", "16", "64"})
+    public int batchSize;
+
+    private Start start;
+    private JsonObject payload;
+
+    @Setup
+    public void setup() throws Exception {
+        JsonObject config = new JsonObject();
+        config.addProperty("mongodb_session_create_batch_size", batchSize);
+        start = BenchmarkStorage.start(config);
+
+        payload = new JsonObject();
+        payload.addProperty("role", "user");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkStorage.stop(start);
+    }
+
+    @Benchmark
+    public void createNewSession() throws Exception {
+        long now = System.currentTimeMillis();
+        start.createNewSession(TenantIdentifier.BASE_TENANT, UUID.randomUUID().toString(), "user", "0a1b", payload,
+                now + 3600000, payload, now, false);
+    }
+}
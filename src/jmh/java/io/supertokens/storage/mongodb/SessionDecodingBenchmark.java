@@ -0,0 +1,109 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.supertokens.pluginInterface.session.noSqlStorage.SessionInfoWithLastUpdated;
+import io.supertokens.storage.mongodb.codecs.Codecs;
+import io.supertokens.storage.mongodb.codecs.SessionDocumentFormat;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Compares reading a session on the refresh path (getSessionInfo_Transaction) with the codecs, against the Document
+ * and row mapper that were used before them, which parsed both payloads with a new JsonParser for every row. Does not
+ * need MongoDB - both start from the bytes the driver would have received. Run with ./gradlew jmh, and add
+ * profilers = ['gc'] to the jmh block in build.gradle to see the bytes allocated per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SessionDecodingBenchmark {
+
+    // whether the codecs store the payloads as sub documents (mongodb_store_session_payloads_as_documents) or as JSON
+    // strings like the row mapper did
+    @Param({"false", "true"})
+    public boolean storePayloadsAsDocuments;
+
+    private final DocumentCodec documentCodec = new DocumentCodec();
+    private Codec<SessionInfoWithLastUpdated> codec;
+    private RawBsonDocument asStrings;
+    private RawBsonDocument forCodec;
+
+    @Setup
+    public void setup() {
+        JsonObject sessionData = new JsonObject();
+        sessionData.addProperty("theme", "dark");
+        sessionData.addProperty("visits", 42);
+        JsonObject jwtPayload = new JsonObject();
+        jwtPayload.addProperty("sub", UUID.randomUUID().toString());
+        jwtPayload.addProperty("email", "user@example.com");
+        jwtPayload.addProperty("role", "admin");
+        JsonObject permissions = new JsonObject();
+        permissions.addProperty("read", true);
+        permissions.addProperty("write", false);
+        jwtPayload.add("permissions", permissions);
+
+        long now = System.currentTimeMillis();
+        SessionInfoWithLastUpdated session = new SessionInfoWithLastUpdated(UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef",
+                sessionData, now + 3600000, jwtPayload, now, false, UUID.randomUUID().toString());
+
+        asStrings = new RawBsonDocument(session, Codecs.createRegistry(new SessionDocumentFormat(false, false, false))
+                .get(SessionInfoWithLastUpdated.class));
+        codec = Codecs.createRegistry(new SessionDocumentFormat(storePayloadsAsDocuments, false, false))
+                .get(SessionInfoWithLastUpdated.class);
+        forCodec = new RawBsonDocument(session, codec);
+    }
+
+    @Benchmark
+    public SessionInfoWithLastUpdated rowMapper() {
+        Document result = asStrings.decode(documentCodec);
+        JsonParser jp = new JsonParser();
+        return new SessionInfoWithLastUpdated(result.getString("_id"), result.getString("user_id"),
+                result.getString("refresh_token_hash_2"),
+                jp.parse(result.getString("session_data")).getAsJsonObject(), result.getLong("expires_at"),
+                jp.parse(result.getString("jwt_user_payload")).getAsJsonObject(), result.getLong("created_at_time"),
+                Boolean.TRUE.equals(result.getBoolean("use_static_key")), result.getString("last_updated_sign"));
+    }
+
+    @Benchmark
+    public SessionInfoWithLastUpdated codec() {
+        return forCodec.decode(codec);
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import com.google.gson.JsonObject;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoException;
+import io.supertokens.pluginInterface.KeyValueInfo;
+import io.supertokens.pluginInterface.KeyValueInfoWithLastUpdated;
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.pluginInterface.jwt.JWTSigningKeyInfo;
+import io.supertokens.pluginInterface.session.SessionInfo;
+import io.supertokens.pluginInterface.session.noSqlStorage.SessionInfoWithLastUpdated;
+import io.supertokens.storage.mongodb.config.Config;
+import io.supertokens.storage.mongodb.config.MongoDBConfig;
+import io.supertokens.storage.mongodb.output.Logging;
+import io.supertokens.storage.mongodb.queries.JWTSigningQueries;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Asynchronous versions of the session, key value and JWT signing key queries. This is only an offload pool: the
+ * queries are the same blocking calls on the same sync MongoClient (and so the same config and connection pool) as
+ * the rest of the plugin, run on a separate executor so that the caller's own threads are not blocked on them. The
+ * reactive driver is not a dependency of this plugin, so nothing here is non blocking I/O, and the number of queries
+ * in flight is bounded by the number of threads in the pool (mongodb_async_storage_thread_pool_size).
+ *
+ * Failures complete the returned future exceptionally with a StorageQueryException, just like the synchronous
+ * methods in Start throw them. That includes queries submitted after the storage layer was closed.
+ *
+ * If mongodb_async_storage_use_virtual_threads is enabled and the JVM supports it (Java 21+), every query runs on its
+ * own virtual thread instead. Since that does not bound the number of queries in flight, a semaphore sized to the
+ * connection pool does, so that callers queue up here instead of in the driver's wait queue.
+ */
+public class AsyncStorage extends ResourceDistributor.SingletonResource {
+
+    private static final ResourceDistributor.ResourceKey<AsyncStorage> RESOURCE_KEY =
+            new ResourceDistributor.ResourceKey<>(AsyncStorage.class);
+
+    // the driver's default, used when neither mongodb_connection_pool_size nor maxPoolSize in the URI is set
+    private static final int DEFAULT_MAX_POOL_SIZE = 100;
+    // how long close waits for calls that are still running, so that they do not run after the connection pool
+    // is closed
+    private static final long CLOSE_TIMEOUT_MS = 5000;
+
+    private final Start start;
+    private final ExecutorService executor;
+    private volatile boolean closed = false;
+
+    // only set when running on virtual threads
+    @Nullable
+    private final Semaphore concurrencyLimit;
+
+    private AsyncStorage(Start start, MongoDBConfig config) {
+        this.start = start;
+        ExecutorService virtualThreadExecutor = null;
+        if (config.useVirtualThreadsForAsyncStorage()) {
+            virtualThreadExecutor = createVirtualThreadExecutor();
+            if (virtualThreadExecutor == null) {
+                Logging.warn(start, "Virtual threads are not supported by this JVM. Using a thread pool of size "
+                        + config.getAsyncStorageThreadPoolSize() + " for the asynchronous storage API instead.");
+            }
+        }
+        if (virtualThreadExecutor != null) {
+            this.executor = virtualThreadExecutor;
+            this.concurrencyLimit = new Semaphore(getMaxPoolSize(config));
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger(0);
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "mongodb-async-storage-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            this.executor = Executors.newFixedThreadPool(config.getAsyncStorageThreadPoolSize(), threadFactory);
+            this.concurrencyLimit = null;
+        }
+    }
+
+    // looked up reflectively, since we also need to run on JVMs older than 21
+    @Nullable
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static int getMaxPoolSize(MongoDBConfig config) {
+        if (config.getConnectionPoolSize() != null) {
+            return config.getConnectionPoolSize();
+        }
+        Integer maxPoolSize = new ConnectionString(ConnectionPool.getConnectionString(config))
+                .getMaxConnectionPoolSize();
+        if (maxPoolSize == null || maxPoolSize <= 0) {
+            return DEFAULT_MAX_POOL_SIZE;
+        }
+        return maxPoolSize;
+    }
+
+    static AsyncStorage getInstance(Start start) {
+        return start.getResourceDistributor()
+                .getOrCreateResource(RESOURCE_KEY, () -> new AsyncStorage(start, Config.getConfig(start)));
+    }
+
+    static void close(Start start) {
+        AsyncStorage instance = start.getResourceDistributor().getResource(RESOURCE_KEY);
+        if (instance == null) {
+            return;
+        }
+        // the closed instance is kept, so that later calls fail instead of creating a new executor
+        instance.closed = true;
+        instance.executor.shutdown();
+        try {
+            if (!instance.executor.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                Logging.warn(start, "Asynchronous storage calls did not finish within " + CLOSE_TIMEOUT_MS
+                        + " ms of closing the storage layer");
+                instance.executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            instance.executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // false if the executor fell back to a thread pool, or was never asked to use virtual threads
+    public boolean isUsingVirtualThreads() {
+        return concurrencyLimit != null;
+    }
+
+    public CompletableFuture<SessionInfo> getSession(String sessionHandle) {
+        return submit(() -> Queries.getSession(start, sessionHandle));
+    }
+
+    public CompletableFuture<Void> createNewSession(String sessionHandle, String userId, String refreshTokenHash2,
+                                                    JsonObject userDataInDatabase, long expiry,
+                                                    JsonObject userDataInJWT, long createdAtTime,
+                                                    boolean useStaticKey) {
+        return submit(() -> {
+            Queries.createNewSession(start, sessionHandle, userId, refreshTokenHash2, userDataInDatabase, expiry,
+                    userDataInJWT, createdAtTime, useStaticKey);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Integer> updateSession(String sessionHandle, @Nullable JsonObject sessionData,
+                                                    @Nullable JsonObject jwtPayload) {
+        return submit(() -> Queries.updateSession(start, sessionHandle, sessionData, jwtPayload));
+    }
+
+    public CompletableFuture<Integer> deleteSession(String[] sessionHandles) {
+        return submit(() -> Queries.deleteSession(start, sessionHandles));
+    }
+
+    public CompletableFuture<Boolean> deleteSessionsOfUser(String userId) {
+        return submit(() -> Queries.deleteSessionsOfUser(start, userId));
+    }
+
+    public CompletableFuture<String[]> getAllNonExpiredSessionHandlesForUser(String userId) {
+        return submit(() -> Queries.getAllNonExpiredSessionHandlesForUser(start, userId));
+    }
+
+    public CompletableFuture<SessionInfoWithLastUpdated> getSessionInfo_Transaction(String sessionHandle) {
+        return submit(() -> Queries.getSessionInfo_Transaction(start, sessionHandle));
+    }
+
+    public CompletableFuture<Boolean> updateSessionInfo_Transaction(String sessionHandle, String refreshTokenHash2,
+                                                                    long expiry, String lastUpdatedSign,
+                                                                    boolean useStaticKey) {
+        return submit(() -> Queries.updateSessionInfo_Transaction(start, sessionHandle, refreshTokenHash2, expiry,
+                lastUpdatedSign, useStaticKey));
+    }
+
+    public CompletableFuture<KeyValueInfo> getKeyValue(String key) {
+        return submit(() -> Queries.getKeyValue(start, key));
+    }
+
+    public CompletableFuture<KeyValueInfoWithLastUpdated> getKeyValue_Transaction(String key) {
+        return submit(() -> Queries.getKeyValue_Transaction(start, key));
+    }
+
+    public CompletableFuture<Boolean> setKeyValue_Transaction(String key, KeyValueInfoWithLastUpdated info) {
+        return submit(() -> Queries.setKeyValue_Transaction(start, key, info));
+    }
+
+    public CompletableFuture<List<JWTSigningKeyInfo>> getJWTSigningKeys_Transaction() {
+        return submit(() -> JWTSigningQueries.getJWTSigningKeys_Transaction(start));
+    }
+
+    // fetches all the given sessions in parallel. Sessions that do not exist are not in the returned map.
+    public CompletableFuture<Map<String, SessionInfo>> getSessions(String[] sessionHandles) {
+        Map<String, CompletableFuture<SessionInfo>> futures = new HashMap<>();
+        for (String sessionHandle : sessionHandles) {
+            futures.put(sessionHandle, getSession(sessionHandle));
+        }
+        return collect(futures);
+    }
+
+    // fetches all the given keys in parallel. Keys that do not exist are not in the returned map.
+    public CompletableFuture<Map<String, KeyValueInfoWithLastUpdated>> getKeyValues_Transaction(String[] keys) {
+        Map<String, CompletableFuture<KeyValueInfoWithLastUpdated>> futures = new HashMap<>();
+        for (String key : keys) {
+            futures.put(key, getKeyValue_Transaction(key));
+        }
+        return collect(futures);
+    }
+
+    private static <T> CompletableFuture<Map<String, T>> collect(Map<String, CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            Map<String, T> result = new HashMap<>();
+            for (Map.Entry<String, CompletableFuture<T>> entry : futures.entrySet()) {
+                T value = entry.getValue().join();
+                if (value != null) {
+                    result.put(entry.getKey(), value);
+                }
+            }
+            return result;
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(StorageCall<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new StorageQueryException(new MongoException("Storage layer is closed")));
+            return result;
+        }
+        try {
+            execute(call, result);
+        } catch (RejectedExecutionException e) {
+            // the executor was shut down after the check above
+            result.completeExceptionally(new StorageQueryException(new MongoException("Storage layer is closed")));
+        }
+        return result;
+    }
+
+    private <T> void execute(StorageCall<T> call, CompletableFuture<T> result) {
+        executor.execute(() -> {
+            try {
+                if (concurrencyLimit != null) {
+                    concurrencyLimit.acquire();
+                }
+                try {
+                    result.complete(call.call());
+                } finally {
+                    if (concurrencyLimit != null) {
+                        concurrencyLimit.release();
+                    }
+                }
+            } catch (MongoException | InterruptedException e) {
+                result.completeExceptionally(new StorageQueryException(e));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface StorageCall<T> {
+        T call() throws StorageQueryException;
+    }
+}
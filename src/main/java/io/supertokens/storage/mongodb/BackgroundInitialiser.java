@@ -0,0 +1,165 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import com.mongodb.MongoException;
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.MongoTimeoutException;
+import io.supertokens.pluginInterface.exceptions.DbInitException;
+import io.supertokens.storage.mongodb.config.Config;
+import io.supertokens.storage.mongodb.output.Logging;
+import io.supertokens.storage.mongodb.utils.DecorrelatedJitterBackoff;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Runs the initialisation of the storage layer (connecting to MongoDB, and everything else that initStorage does) on
+ * a background thread, when mongodb_initialise_in_background is enabled, so that initStorage can return right away.
+ *
+ * Until the connection pool is set up, queries wait for it for at most
+ * mongodb_background_initialisation_wait_timeout_ms, after which they fail with a MongoTimeoutException (which the
+ * callers turn into a StorageQueryException), so that they can be retried later.
+ *
+ * If the initialisation fails, it is retried on the same thread with the backoff of mongodb_init_retry_* until it
+ * succeeds or the storage layer is closed, since nothing else would ever set up the connection pool. Queries that time
+ * out in the meantime include the reason for the last failure.
+ */
+public class BackgroundInitialiser extends ResourceDistributor.SingletonResource {
+
+    private static final ResourceDistributor.ResourceKey<BackgroundInitialiser> RESOURCE_KEY =
+            new ResourceDistributor.ResourceKey<>(BackgroundInitialiser.class);
+
+    // how long close waits for the thread to stop, so that it does not set up a client after the pool is closed
+    private static final long CLOSE_TIMEOUT_MS = 5000;
+
+    private final CountDownLatch connectionPoolReady = new CountDownLatch(1);
+    private final Thread thread;
+    private volatile Exception failure = null;
+    private volatile boolean closed = false;
+
+    private BackgroundInitialiser(Start start, InitTask task) {
+        this.thread = new Thread(() -> {
+            try {
+                runUntilDone(start, task);
+            } finally {
+                // this is a no-op if it has already been marked as ready
+                connectionPoolReady.countDown();
+            }
+        }, "mongodb-background-init");
+        this.thread.setDaemon(true);
+    }
+
+    private void runUntilDone(Start start, InitTask task) {
+        DecorrelatedJitterBackoff backoff = ConnectionPool.getRetryBackoffIfInitFails(start);
+        while (!closed) {
+            try {
+                task.run(this::markConnectionPoolReady);
+                failure = null;
+                return;
+            } catch (DbInitException | RuntimeException e) {
+                if (closed) {
+                    return;
+                }
+                failure = e;
+                long retryInterval = backoff.nextDelayMs();
+                Logging.error(start, "Failed to initialise the MongoDB storage layer in the background. Trying again "
+                        + "in " + retryInterval + " ms", true, e);
+                try {
+                    Thread.sleep(retryInterval);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void markConnectionPoolReady() {
+        connectionPoolReady.countDown();
+    }
+
+    static void start(Start start, InitTask task) {
+        if (start.getResourceDistributor().getResource(RESOURCE_KEY) != null) {
+            return;
+        }
+        // the instance has to be stored before its thread starts, since initPool looks it up from that thread to
+        // check that it is allowed to run there. If another call stored an instance first, that one is already running.
+        BackgroundInitialiser created = new BackgroundInitialiser(start, task);
+        if (start.getResourceDistributor().setResource(RESOURCE_KEY, created) == created) {
+            created.thread.start();
+        }
+    }
+
+    static boolean isBackgroundInitThread(Start start) {
+        BackgroundInitialiser instance = start.getResourceDistributor().getResource(RESOURCE_KEY);
+        return instance != null && Thread.currentThread() == instance.thread;
+    }
+
+    // returns right away if the storage layer is not being initialised in the background
+    static void waitUntilConnectionPoolIsReady(Start start) {
+        BackgroundInitialiser instance = start.getResourceDistributor().getResource(RESOURCE_KEY);
+        if (instance == null || Thread.currentThread() == instance.thread) {
+            return;
+        }
+        long timeout = Config.getConfig(start).getBackgroundInitialisationWaitTimeout();
+        try {
+            if (!instance.connectionPoolReady.await(timeout, TimeUnit.MILLISECONDS)) {
+                Exception lastFailure = instance.failure;
+                throw new MongoTimeoutException("Timed out after " + timeout + " ms while waiting for the connection "
+                        + "to MongoDB to be set up" + (lastFailure == null ? "" : ". Last attempt failed with: "
+                        + lastFailure.getMessage()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MongoInterruptedException("Interrupted while waiting for the connection to MongoDB to be set up",
+                    e);
+        }
+        // the thread only stops without a connection pool if it was closed. A failure after the connection pool was
+        // set up does not stop queries from running.
+        if (instance.failure != null && !ConnectionPool.isAlreadyInitialised(start)) {
+            throw new MongoException("Failed to connect to MongoDB: " + instance.failure.getMessage());
+        }
+    }
+
+    static void close(Start start) {
+        BackgroundInitialiser instance = start.getResourceDistributor().getResource(RESOURCE_KEY);
+        if (instance == null) {
+            return;
+        }
+        instance.closed = true;
+        instance.thread.interrupt();
+        if (Thread.currentThread() != instance.thread) {
+            try {
+                instance.thread.join(CLOSE_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (instance.thread.isAlive()) {
+                Logging.warn(start, "MongoDB background initialisation did not stop within " + CLOSE_TIMEOUT_MS
+                        + " ms of closing the storage layer");
+            }
+        }
+        start.getResourceDistributor().removeResource(RESOURCE_KEY);
+    }
+
+    @FunctionalInterface
+    interface InitTask {
+        // connectionPoolReady is called once queries can be run, which may be before the rest of the task is done
+        void run(Runnable connectionPoolReady) throws DbInitException;
+    }
+}
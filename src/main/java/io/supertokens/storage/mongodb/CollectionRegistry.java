@@ -0,0 +1,149 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import com.mongodb.MongoException;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import io.supertokens.pluginInterface.KeyValueInfoWithLastUpdated;
+import io.supertokens.pluginInterface.jwt.JWTSigningKeyInfo;
+import io.supertokens.pluginInterface.session.SessionInfo;
+import io.supertokens.pluginInterface.session.noSqlStorage.SessionInfoWithLastUpdated;
+import io.supertokens.storage.mongodb.codecs.Codecs;
+import io.supertokens.storage.mongodb.codecs.SessionDocumentFormat;
+import io.supertokens.storage.mongodb.config.MongoDBConfig;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/*
+ * The collection handles used by the queries. MongoCollection objects are immutable and thread safe, so we create all
+ * of them (with the codec registry already applied) once the connection pool is initialised, instead of looking up the
+ * database and the collection on every query. They are removed again when the connection pool is closed.
+ *
+ * The handles that are used to compare and set (the *_Transaction queries, the key value entries and the JWT signing
+ * keys), as well as the plain sessions handle that the writes and the session counters use, read from the primary,
+ * whatever read preference the connection URI asks for, since they must see their own writes. The handles used by
+ * getSession (sessionsAsRawBson and sessionsAsSessionInfo) keep the read preference of the connection URI. The
+ * *ForStaleReads handles use mongodb_stale_reads_read_preference, and must only be used by queries that are fine with
+ * reading slightly out of date data from a secondary.
+ */
+public class CollectionRegistry extends ResourceDistributor.SingletonResource {
+
+    private static final ResourceDistributor.ResourceKey<CollectionRegistry> RESOURCE_KEY =
+            new ResourceDistributor.ResourceKey<>(CollectionRegistry.class);
+
+    private final SessionDocumentFormat sessionDocumentFormat;
+    private final CodecRegistry codecRegistry;
+    private final MongoCollection<Document> sessions;
+    private final MongoCollection<RawBsonDocument> sessionsAsRawBson;
+    private final MongoCollection<SessionInfo> sessionsAsSessionInfo;
+    private final MongoCollection<SessionInfoWithLastUpdated> sessionsAsSessionInfoWithLastUpdated;
+    private final MongoCollection<Document> keyValues;
+    private final MongoCollection<KeyValueInfoWithLastUpdated> keyValuesAsKeyValueInfo;
+    private final MongoCollection<Document> jwtSigningKeys;
+    private final MongoCollection<JWTSigningKeyInfo> jwtSigningKeysAsKeyInfo;
+    private final MongoCollection<Document> sessionsForStaleReads;
+
+    private CollectionRegistry(MongoDatabase database, MongoDBConfig config) {
+        this.sessionDocumentFormat = SessionDocumentFormat.fromConfig(config);
+        this.codecRegistry = Codecs.createRegistry(sessionDocumentFormat);
+        MongoDatabase withCodecs = database.withCodecRegistry(codecRegistry);
+        MongoDatabase fromPrimary = withCodecs.withReadPreference(ReadPreference.primary());
+        MongoCollection<Document> sessionsWithUriReadPreference =
+                withCodecs.getCollection(config.getSessionInfoCollection());
+        this.sessions = fromPrimary.getCollection(config.getSessionInfoCollection());
+        this.sessionsAsRawBson = sessionsWithUriReadPreference.withDocumentClass(RawBsonDocument.class);
+        this.sessionsAsSessionInfo = sessionsWithUriReadPreference.withDocumentClass(SessionInfo.class);
+        this.sessionsAsSessionInfoWithLastUpdated = sessions.withDocumentClass(SessionInfoWithLastUpdated.class);
+        this.keyValues = fromPrimary.getCollection(config.getKeyValueCollection());
+        this.keyValuesAsKeyValueInfo = keyValues.withDocumentClass(KeyValueInfoWithLastUpdated.class);
+        this.jwtSigningKeys = fromPrimary.getCollection(config.getJWTSigningKeysCollection());
+        this.jwtSigningKeysAsKeyInfo = jwtSigningKeys.withDocumentClass(JWTSigningKeyInfo.class);
+        this.sessionsForStaleReads = sessions.withReadPreference(config.getStaleReadsReadPreference());
+    }
+
+    static void init(Start start, MongoDatabase database, MongoDBConfig config) {
+        start.getResourceDistributor().setResource(RESOURCE_KEY, new CollectionRegistry(database, config));
+    }
+
+    // this does the same checks as ConnectionPool.getClientConnectedToDatabase
+    public static CollectionRegistry getInstance(Start start) {
+        CollectionRegistry instance = start.getResourceDistributor().getResource(RESOURCE_KEY);
+        if (instance == null) {
+            BackgroundInitialiser.waitUntilConnectionPoolIsReady(start);
+            instance = start.getResourceDistributor().getResource(RESOURCE_KEY);
+        }
+        if (instance == null) {
+            throw new RuntimeException("Please call initPool before getConnection");
+        }
+        if (!start.enabled) {
+            throw new MongoException("Storage layer disabled");
+        }
+        return instance;
+    }
+
+    static void close(Start start) {
+        start.getResourceDistributor().removeResource(RESOURCE_KEY);
+    }
+
+    public SessionDocumentFormat getSessionDocumentFormat() {
+        return sessionDocumentFormat;
+    }
+
+    public CodecRegistry getCodecRegistry() {
+        return codecRegistry;
+    }
+
+    public MongoCollection<Document> getSessions() {
+        return sessions;
+    }
+
+    public MongoCollection<RawBsonDocument> getSessionsAsRawBson() {
+        return sessionsAsRawBson;
+    }
+
+    public MongoCollection<SessionInfo> getSessionsAsSessionInfo() {
+        return sessionsAsSessionInfo;
+    }
+
+    public MongoCollection<SessionInfoWithLastUpdated> getSessionsAsSessionInfoWithLastUpdated() {
+        return sessionsAsSessionInfoWithLastUpdated;
+    }
+
+    public MongoCollection<Document> getKeyValues() {
+        return keyValues;
+    }
+
+    public MongoCollection<KeyValueInfoWithLastUpdated> getKeyValuesAsKeyValueInfo() {
+        return keyValuesAsKeyValueInfo;
+    }
+
+    public MongoCollection<Document> getJWTSigningKeys() {
+        return jwtSigningKeys;
+    }
+
+    public MongoCollection<JWTSigningKeyInfo> getJWTSigningKeysAsKeyInfo() {
+        return jwtSigningKeysAsKeyInfo;
+    }
+
+    public MongoCollection<Document> getSessionsForStaleReads() {
+        return sessionsForStaleReads;
+    }
+}
@@ -22,21 +22,29 @@ import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.connection.ConnectionPoolSettings;
+import com.mongodb.connection.ServerDescription;
+import com.mongodb.connection.SocketSettings;
 import io.supertokens.pluginInterface.exceptions.DbInitException;
 import io.supertokens.storage.mongodb.config.Config;
 import io.supertokens.storage.mongodb.config.MongoDBConfig;
 import io.supertokens.storage.mongodb.output.Logging;
+import io.supertokens.storage.mongodb.utils.DecorrelatedJitterBackoff;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
-import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
 public class ConnectionPool extends ResourceDistributor.SingletonResource {
 
-    private static final String RESOURCE_KEY = "io.supertokens.storage.mongodb.ConnectionPool";
+    private static final ResourceDistributor.ResourceKey<ConnectionPool> RESOURCE_KEY =
+            new ResourceDistributor.ResourceKey<>(ConnectionPool.class);
     private MongoClient mongoClient;
 
+    // set once the connection check in initialiseMongoClient has passed and the collections have been set up. Until
+    // then, mongoClient may exist but not be connected to anything yet.
+    private volatile boolean initialised = false;
+
     private final Start start;
 
     private ConnectionPool(Start start) {
@@ -44,16 +52,71 @@ public class ConnectionPool extends ResourceDistributor.SingletonResource {
     }
 
     private synchronized void initialiseMongoClient() {
-        if (this.mongoClient != null) {
-            return;
-        }
-
         if (!start.enabled) {
             throw new MongoTimeoutException("Connection refused");
         }
 
-        MongoDBConfig userConfig = Config.getConfig(start);
+        // the client is kept across retries, so that its server monitors keep trying to connect in the background
+        // while we wait between attempts.
+        if (mongoClient == null) {
+            MongoDBConfig userConfig = Config.getConfig(start);
+            String connectionURI = getConnectionString(userConfig);
+
+            // the pool and socket configs are applied after the connection string, so they take precedence over the
+            // same options given in the connection URI.
+            mongoClient = MongoClients.create(MongoClientSettings.builder()
+                    .applyConnectionString(new ConnectionString(connectionURI))
+                    .applyToClusterSettings(builder -> builder.serverSelectionTimeout(5000, TimeUnit.MILLISECONDS))
+                    .applyToConnectionPoolSettings(builder -> applyConnectionPoolSettings(builder, userConfig))
+                    .applyToSocketSettings(builder -> applySocketSettings(builder, userConfig))
+                    .build());
+        }
+
+        // we have this below because there is a chance where this server is started before mongodb. So we must wait
+        // for that to start, else this service will crash.
+
+        // The below does not check for password or user being correct. But that is OK since then subsequent queries
+        // will simply fail
+        try {
+            ClientSession session = mongoClient.startSession();
+            session.close();
+            // this means we have connected successfully
+        } catch (MongoClientException e) {
+            if (!e.getMessage().contains("Sessions are not supported")) {
+                throw e;
+            }
+            // this means we have connected successfully
+        }
+
+    }
+
+    private static void applyConnectionPoolSettings(ConnectionPoolSettings.Builder builder, MongoDBConfig userConfig) {
+        if (userConfig.getConnectionPoolSize() != null) {
+            builder.maxSize(userConfig.getConnectionPoolSize());
+        }
+        if (userConfig.getMinimumIdleConnections() != null) {
+            builder.minSize(userConfig.getMinimumIdleConnections());
+        }
+        if (userConfig.getIdleConnectionTimeout() != null) {
+            builder.maxConnectionIdleTime(userConfig.getIdleConnectionTimeout(), TimeUnit.MILLISECONDS);
+        }
+        if (userConfig.getConnectionPoolWaitTimeout() != null) {
+            builder.maxWaitTime(userConfig.getConnectionPoolWaitTimeout(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void applySocketSettings(SocketSettings.Builder builder, MongoDBConfig userConfig) {
+        if (userConfig.getConnectTimeout() != null) {
+            builder.connectTimeout(userConfig.getConnectTimeout().intValue(), TimeUnit.MILLISECONDS);
+        }
+        if (userConfig.getSocketReadTimeout() != null) {
+            builder.readTimeout(userConfig.getSocketReadTimeout().intValue(), TimeUnit.MILLISECONDS);
+        }
+    }
 
+    // builds the connection string that MongoClient is created with, from mongodb_connection_uri and the other
+    // connection related configs.
+    static String getConnectionString(MongoDBConfig userConfig) {
         String connectionURI = "";
         if (userConfig.useConnectionURIAsIs()) {
             connectionURI = userConfig.getConnectionURI();
@@ -93,52 +156,70 @@ public class ConnectionPool extends ResourceDistributor.SingletonResource {
             connectionURI = scheme + "://" + userInfo + hostName + port + "/" + attributes;
 
         }
-
-        mongoClient = MongoClients
-                .create(MongoClientSettings.builder().applyConnectionString(new ConnectionString(connectionURI))
-                        .applyToClusterSettings(builder -> builder.serverSelectionTimeout(5000, TimeUnit.MILLISECONDS))
-                        .build());
-
-        // we have this below because there is a chance where this server is started before mongodb. So we must wait
-        // for that to start, else this service will crash.
-
-        // The below does not check for password or user being correct. But that is OK since then subsequent queries
-        // will simply fail
-        try {
-            ClientSession session = mongoClient.startSession();
-            session.close();
-            // this means we have connected successfully
-        } catch (MongoClientException e) {
-            if (!e.getMessage().contains("Sessions are not supported")) {
-                throw e;
-            }
-            // this means we have connected successfully
-        }
-
+        return connectionURI;
     }
 
-    private static int getTimeToWaitToInit(Start start) {
-        int actualValue = 3600 * 1000;
+    private static long getTimeToWaitToInit(Start start) {
+        long actualValue = Config.getConfig(start).getInitTimeout();
         if (Start.isTesting) {
             Integer testValue = ConnectionPoolTestContent.getInstance(start)
                     .getValue(ConnectionPoolTestContent.TIME_TO_WAIT_TO_INIT);
-            return Objects.requireNonNullElse(testValue, actualValue);
+            return testValue != null ? testValue : actualValue;
         }
         return actualValue;
     }
 
-    private static int getRetryIntervalIfInitFails(Start start) {
-        int actualValue = 10 * 1000;
+    // the test value replaces the max interval, and also caps the initial one, so that tests which set a short retry
+    // interval keep retrying at most that far apart.
+    static DecorrelatedJitterBackoff getRetryBackoffIfInitFails(Start start) {
+        MongoDBConfig config = Config.getConfig(start);
+        long initialInterval = config.getInitRetryInitialInterval();
+        long maxInterval = config.getInitRetryMaxInterval();
         if (Start.isTesting) {
             Integer testValue = ConnectionPoolTestContent.getInstance(start)
                     .getValue(ConnectionPoolTestContent.RETRY_INTERVAL_IF_INIT_FAILS);
-            return Objects.requireNonNullElse(testValue, actualValue);
+            if (testValue != null) {
+                maxInterval = testValue;
+                initialInterval = Math.min(initialInterval, maxInterval);
+            }
         }
-        return actualValue;
+        return new DecorrelatedJitterBackoff(initialInterval, maxInterval);
+    }
+
+    /*
+     * Whether initPool should retry after this failure, because MongoDB is not reachable yet (it is not running, or is
+     * still starting up and closes connections right away). Anything else (like a host that does not resolve, or bad
+     * TLS settings) will not fix itself by waiting, so we fail right away.
+     *
+     * A failed server selection only throws a MongoTimeoutException, so in that case we look at why the client
+     * could not connect to each of the servers.
+     */
+    private static boolean isRetriableInitFailure(Start start, ConnectionPool con, Exception e) {
+        if (!start.enabled) {
+            // this is treated just like MongoDB not being reachable, so that tests can simulate that
+            return true;
+        }
+        if (isRetriableConnectionFailure(e)) {
+            return true;
+        }
+        if (e instanceof MongoTimeoutException && con.mongoClient != null) {
+            for (ServerDescription server : con.mongoClient.getClusterDescription().getServerDescriptions()) {
+                if (isRetriableConnectionFailure(server.getException())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRetriableConnectionFailure(Throwable e) {
+        // MongoSocketOpenException is thrown when the connection is refused or the host is unreachable, and
+        // MongoSocketReadException when the server closes the connection (for example while it is starting up).
+        return e instanceof MongoSocketOpenException || e instanceof MongoSocketReadException;
     }
 
     private static ConnectionPool getInstance(Start start) {
-        return (ConnectionPool) start.getResourceDistributor().getResource(RESOURCE_KEY);
+        return start.getResourceDistributor().getResource(RESOURCE_KEY);
     }
 
     private static void removeInstance(Start start) {
@@ -146,49 +227,60 @@ public class ConnectionPool extends ResourceDistributor.SingletonResource {
     }
 
     static boolean isAlreadyInitialised(Start start) {
-        return getInstance(start) != null && getInstance(start).mongoClient != null;
+        return getInstance(start) != null && getInstance(start).initialised;
     }
 
     static void initPool(Start start) throws DbInitException {
         if (isAlreadyInitialised(start)) {
             return;
         }
-        if (Thread.currentThread() != start.mainThread) {
+        if (Thread.currentThread() != start.mainThread && !BackgroundInitialiser.isBackgroundInitThread(start)) {
             throw new DbInitException("Should not come here");
         }
         Logging.info(start, "Setting up MongoDB connection.", true);
         boolean longMessagePrinted = false;
-        long maxTryTime = System.currentTimeMillis() + getTimeToWaitToInit(start);
+        long startTime = System.currentTimeMillis();
+        long maxTryTime = startTime + getTimeToWaitToInit(start);
+        DecorrelatedJitterBackoff backoff = getRetryBackoffIfInitFails(start);
         String errorMessage = "Error connecting to MongoDB instance. Please make sure that MongoDB is running and that "
                 + "you have" + " specified the correct value for 'mongodb_connection_uri' in your " + "config file";
         try {
-            ConnectionPool con = new ConnectionPool(start);
-            start.getResourceDistributor().setResource(RESOURCE_KEY, con);
+            // an instance left over from an earlier attempt that failed is reused, so that its client is not leaked
+            ConnectionPool con = start.getResourceDistributor()
+                    .getOrCreateResource(RESOURCE_KEY, () -> new ConnectionPool(start));
             while (true) {
                 try {
                     con.initialiseMongoClient();
+                    MongoDBConfig config = Config.getConfig(start);
+                    CollectionRegistry.init(start, con.mongoClient.getDatabase(config.getDatabaseName()), config);
+                    con.initialised = true;
+                    if (longMessagePrinted) {
+                        Logging.info(start, "Connected to MongoDB after "
+                                + (System.currentTimeMillis() - startTime) + " ms", true);
+                    }
                     break;
                 } catch (Exception e) {
-                    if (e.getMessage().contains("Connection refused") || (e instanceof com.mongodb.MongoTimeoutException
-                            && e.getMessage().contains("Prematurely reached end of stream"))) {
+                    if (isRetriableInitFailure(start, con, e)) {
                         start.handleKillSignalForWhenItHappens();
-                        if (System.currentTimeMillis() > maxTryTime) {
+                        long timeRemaining = maxTryTime - System.currentTimeMillis();
+                        if (timeRemaining <= 0) {
                             throw new DbInitException(errorMessage);
                         }
                         if (!longMessagePrinted) {
                             longMessagePrinted = true;
                             Logging.info(start, errorMessage, true);
                         }
-                        double minsRemaining = (maxTryTime - System.currentTimeMillis()) / (1000.0 * 60);
+                        // we do not sleep past the deadline, so that the last attempt happens right before it
+                        long retryInterval = Math.min(backoff.nextDelayMs(), timeRemaining);
+                        double minsRemaining = timeRemaining / (1000.0 * 60);
                         NumberFormat formatter = new DecimalFormat("#0.0");
-                        Logging.info(start,
-                                "Trying again in a few seconds for " + formatter.format(minsRemaining) + " mins...",
-                                true);
+                        Logging.info(start, "Trying again in " + retryInterval + " ms for "
+                                + formatter.format(minsRemaining) + " mins...", true);
                         try {
                             if (Thread.interrupted()) {
                                 throw new InterruptedException();
                             }
-                            Thread.sleep(getRetryIntervalIfInitFails(start));
+                            Thread.sleep(retryInterval);
                         } catch (InterruptedException ex) {
                             throw new DbInitException(errorMessage);
                         }
@@ -203,6 +295,9 @@ public class ConnectionPool extends ResourceDistributor.SingletonResource {
     }
 
     public static MongoDatabase getClientConnectedToDatabase(Start start) {
+        if (!isAlreadyInitialised(start)) {
+            BackgroundInitialiser.waitUntilConnectionPoolIsReady(start);
+        }
         if (getInstance(start) == null) {
             throw new RuntimeException("Please call initPool before getConnection");
         }
@@ -216,7 +311,11 @@ public class ConnectionPool extends ResourceDistributor.SingletonResource {
         if (getInstance(start) == null) {
             return;
         }
-        getInstance(start).mongoClient.close();
+        CollectionRegistry.close(start);
+        // the client is not created if the storage layer was disabled the whole time initPool was retrying
+        if (getInstance(start).mongoClient != null) {
+            getInstance(start).mongoClient.close();
+        }
         removeInstance(start);
     }
 }
@@ -24,7 +24,12 @@ public class ConnectionPoolTestContent extends ResourceDistributor.SingletonReso
 
     public static final String TIME_TO_WAIT_TO_INIT = "timeToWaitToInit";
     public static final String RETRY_INTERVAL_IF_INIT_FAILS = "retryIntervalIfInitFails";
-    private static final String RESOURCE_ID = "io.supertokens.storage.mongodb.ConnectionPoolTestContent";
+    // a MongoCollection<SessionInfoWithLastUpdated> that SessionInsertBatcher writes to instead of the real one
+    public static final String SESSION_INSERT_BATCHER_COLLECTION = "sessionInsertBatcherCollection";
+    // a MongoCollection<Document> that ExpiredSessionsCleanup reads and deletes from instead of the real one
+    public static final String EXPIRED_SESSIONS_CLEANUP_COLLECTION = "expiredSessionsCleanupCollection";
+    private static final ResourceDistributor.ResourceKey<ConnectionPoolTestContent> RESOURCE_ID =
+            new ResourceDistributor.ResourceKey<>(ConnectionPoolTestContent.class);
     private Map<String, Object> keyValue = new HashMap<String, Object>();
 
     private ConnectionPoolTestContent() {
@@ -32,11 +37,7 @@ public class ConnectionPoolTestContent extends ResourceDistributor.SingletonReso
     }
 
     public static ConnectionPoolTestContent getInstance(Start start) {
-        ResourceDistributor.SingletonResource resource = start.getResourceDistributor().getResource(RESOURCE_ID);
-        if (resource == null) {
-            resource = start.getResourceDistributor().setResource(RESOURCE_ID, new ConnectionPoolTestContent());
-        }
-        return (ConnectionPoolTestContent) resource;
+        return start.getResourceDistributor().getOrCreateResource(RESOURCE_ID, ConnectionPoolTestContent::new);
     }
 
     public void setKeyValue(String key, Object value) {
@@ -0,0 +1,116 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.storage.mongodb.config.Config;
+import io.supertokens.storage.mongodb.indexes.IndexManager;
+import io.supertokens.storage.mongodb.output.Logging;
+import io.supertokens.storage.mongodb.queries.JWTSigningQueries;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * Gets the connection pool and the server's cache ready before the core starts serving requests, so that the first
+ * requests after a deploy do not each pay for a new connection (TCP, TLS and auth handshakes) or for reading indexes
+ * and documents from disk.
+ *
+ * This opens mongodb_warm_up_connections connections in parallel (by running that many ping commands at the same
+ * time), reads one entry through each of the indexes in IndexManager, and reads the JWT signing keys and the key value
+ * entries, which are the first things that the core reads. Warming up is best effort, so failures are only logged.
+ */
+public class ConnectionPoolWarmUp {
+
+    // the key_value collection only holds a handful of entries written by the core, so this reads all of them
+    private static final int MAX_KEY_VALUES_TO_READ = 100;
+
+    static void warmUp(Start start) {
+        int connections = Config.getConfig(start).getWarmUpConnections();
+        if (connections == 0) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            MongoDatabase database = ConnectionPool.getClientConnectedToDatabase(start);
+            openConnections(database, connections);
+            IndexManager.touchIndexes(start, database);
+            JWTSigningQueries.getJWTSigningKeys_Transaction(start);
+            readKeyValues(start);
+        } catch (MongoException | StorageQueryException e) {
+            Logging.error(start, "Failed to warm up the MongoDB connection pool", false, e);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        Logging.info(start, "Warmed up " + connections + " MongoDB connections in "
+                + (System.currentTimeMillis() - startTime) + " ms", true);
+    }
+
+    private static void openConnections(MongoDatabase database, int connections) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(connections, runnable -> {
+            Thread thread = new Thread(runnable, "mongodb-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // all the pings are sent at once, since a ping that runs after another one has finished would just reuse
+            // that connection instead of opening a new one
+            CountDownLatch allStarted = new CountDownLatch(connections);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                futures.add(executor.submit(() -> {
+                    allStarted.countDown();
+                    allStarted.await();
+                    return database.runCommand(new Document("ping", 1));
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof MongoException) {
+                        throw (MongoException) e.getCause();
+                    }
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void readKeyValues(Start start) {
+        try (MongoCursor<Document> cursor = CollectionRegistry.getInstance(start).getKeyValues().find()
+                .limit(MAX_KEY_VALUES_TO_READ).iterator()) {
+            while (cursor.hasNext()) {
+                cursor.next();
+            }
+        }
+    }
+}
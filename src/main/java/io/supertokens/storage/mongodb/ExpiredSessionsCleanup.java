@@ -0,0 +1,194 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import com.mongodb.MongoWriteConcernException;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.result.DeleteResult;
+import io.supertokens.storage.mongodb.config.Config;
+import io.supertokens.storage.mongodb.output.Logging;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Deletes expired sessions in bounded chunks instead of one large deleteMany, so that a backlog of expired sessions
+ * does not cause replication lag or evict the working set from the cache.
+ *
+ * Each chunk picks the _ids of the oldest expired sessions via the expires_at index, and deletes them with the expiry
+ * filter applied again (so that a session that was refreshed in between is not deleted). The deletes use a majority
+ * write concern, which means that the time a chunk takes includes the time the secondaries take to catch up. We then
+ * pause for as long as the chunk took (capped at MAX_PAUSE_MS), so that the cleanup backs off on its own when the
+ * cluster is under load or lagging. If a majority does not acknowledge a chunk within MAJORITY_WRITE_TIMEOUT_MS, the
+ * secondaries are too far behind, so we stop the run there and leave the rest to the next one.
+ *
+ * The chunk latency is the only lag signal we use. Reading the actual replication lag needs replSetGetStatus, which
+ * needs the clusterMonitor role, and the user the plugin connects as usually does not have that.
+ *
+ * Since chunks are selected purely based on the expiry filter, a run that is stopped midway (for example because the
+ * process was killed) has nothing to recover - the next run simply continues with whatever is left.
+ */
+public class ExpiredSessionsCleanup extends ResourceDistributor.SingletonResource {
+
+    private static final ResourceDistributor.ResourceKey<ExpiredSessionsCleanup> RESOURCE_KEY =
+            new ResourceDistributor.ResourceKey<>(ExpiredSessionsCleanup.class);
+    private static final long MAX_PAUSE_MS = 1000;
+    private static final long MAJORITY_WRITE_TIMEOUT_MS = 10000;
+
+    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private final AtomicLong totalSessionsDeleted = new AtomicLong(0);
+    private final AtomicLong totalChunksDeleted = new AtomicLong(0);
+    private final AtomicLong totalTimePausedMs = new AtomicLong(0);
+    private final AtomicLong totalWriteConcernTimeouts = new AtomicLong(0);
+    private final AtomicLong sessionsDeletedInCurrentRun = new AtomicLong(0);
+    private volatile long lastRunStartedAt = -1;
+    private volatile long lastRunDurationMs = -1;
+
+    private ExpiredSessionsCleanup() {
+
+    }
+
+    public static ExpiredSessionsCleanup getInstance(Start start) {
+        return start.getResourceDistributor().getOrCreateResource(RESOURCE_KEY, ExpiredSessionsCleanup::new);
+    }
+
+    // returns the number of sessions deleted by this call
+    long run(Start start, MongoCollection<Document> collection, Bson expiredFilter) {
+        if (!isRunning.compareAndSet(false, true)) {
+            // another thread in this process is already cleaning up.
+            return 0;
+        }
+        lastRunStartedAt = System.currentTimeMillis();
+        sessionsDeletedInCurrentRun.set(0);
+        long deletedInThisRun;
+        if (Start.isTesting) {
+            MongoCollection<Document> testValue = ConnectionPoolTestContent.getInstance(start)
+                    .getValue(ConnectionPoolTestContent.EXPIRED_SESSIONS_CLEANUP_COLLECTION);
+            if (testValue != null) {
+                collection = testValue;
+            }
+        }
+        try {
+            int chunkSize = Config.getConfig(start).getExpiredSessionsCleanupChunkSize();
+            MongoCollection<Document> majorityCollection = collection.withWriteConcern(
+                    WriteConcern.MAJORITY.withWTimeout(MAJORITY_WRITE_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+            while (true) {
+                List<Object> ids = new ArrayList<>();
+                try (MongoCursor<Document> cursor = collection.find(expiredFilter)
+                        .projection(Projections.include("_id")).sort(Sorts.ascending("expires_at")).limit(chunkSize)
+                        .iterator()) {
+                    while (cursor.hasNext()) {
+                        ids.add(cursor.next().get("_id"));
+                    }
+                }
+                if (ids.isEmpty()) {
+                    break;
+                }
+
+                long chunkStartTime = System.nanoTime();
+                long deletedCount;
+                try {
+                    DeleteResult result = majorityCollection.deleteMany(Filters.and(Filters.in("_id", ids),
+                            expiredFilter));
+                    deletedCount = result.getDeletedCount();
+                } catch (MongoWriteConcernException e) {
+                    // the chunk was deleted on the primary, but a majority did not acknowledge it in time. Going on
+                    // would only add to the lag, so this run ends here.
+                    deletedCount = e.getWriteResult().getCount();
+                    totalChunksDeleted.incrementAndGet();
+                    totalSessionsDeleted.addAndGet(deletedCount);
+                    sessionsDeletedInCurrentRun.addAndGet(deletedCount);
+                    totalWriteConcernTimeouts.incrementAndGet();
+                    Logging.warn(start, "Stopped deleting expired sessions since a majority of the replica set did "
+                            + "not acknowledge the deletes in time: " + e.getMessage());
+                    break;
+                }
+                long chunkDurationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - chunkStartTime);
+
+                totalChunksDeleted.incrementAndGet();
+                totalSessionsDeleted.addAndGet(deletedCount);
+                sessionsDeletedInCurrentRun.addAndGet(deletedCount);
+
+                if (ids.size() < chunkSize) {
+                    break;
+                }
+
+                long pauseMs = Math.min(chunkDurationMs, MAX_PAUSE_MS);
+                if (pauseMs > 0) {
+                    try {
+                        Thread.sleep(pauseMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    totalTimePausedMs.addAndGet(pauseMs);
+                }
+            }
+        } finally {
+            // read before isRunning is reset, since the next run starts counting from 0 again
+            deletedInThisRun = sessionsDeletedInCurrentRun.get();
+            lastRunDurationMs = System.currentTimeMillis() - lastRunStartedAt;
+            isRunning.set(false);
+            Logging.debug(start, "Deleted " + deletedInThisRun + " expired sessions in " + lastRunDurationMs + " ms");
+        }
+        return deletedInThisRun;
+    }
+
+    public boolean isRunning() {
+        return isRunning.get();
+    }
+
+    public long getTotalSessionsDeleted() {
+        return totalSessionsDeleted.get();
+    }
+
+    public long getTotalChunksDeleted() {
+        return totalChunksDeleted.get();
+    }
+
+    public long getTotalTimePausedMs() {
+        return totalTimePausedMs.get();
+    }
+
+    public long getTotalWriteConcernTimeouts() {
+        return totalWriteConcernTimeouts.get();
+    }
+
+    public long getSessionsDeletedInCurrentRun() {
+        return sessionsDeletedInCurrentRun.get();
+    }
+
+    public long getLastRunStartedAt() {
+        return lastRunStartedAt;
+    }
+
+    public long getLastRunDurationMs() {
+        return lastRunDurationMs;
+    }
+}
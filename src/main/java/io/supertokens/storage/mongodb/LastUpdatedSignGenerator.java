@@ -0,0 +1,84 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import io.supertokens.storage.mongodb.config.Config;
+import io.supertokens.storage.mongodb.utils.Utils;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Generates the last_updated_sign values that are used for compare and set updates of sessions and key values. These
+ * only need to be different from the previous sign of the same document, not unpredictable.
+ *
+ * mongodb_last_updated_sign_generator picks how they are generated:
+ * - "uuid" (the default): a random UUID. Every call goes through a shared SecureRandom.
+ * - "counter": a random node id, picked once when the storage layer starts, followed by a counter. This only needs
+ *   one atomic increment per call. The result is still formatted as a UUID, so that it can be stored compactly when
+ *   mongodb_use_compact_session_encoding is enabled.
+ */
+public abstract class LastUpdatedSignGenerator extends ResourceDistributor.SingletonResource {
+
+    private static final ResourceDistributor.ResourceKey<LastUpdatedSignGenerator> RESOURCE_KEY =
+            new ResourceDistributor.ResourceKey<>(LastUpdatedSignGenerator.class);
+
+    public static final String UUID_GENERATOR = "uuid";
+    public static final String COUNTER_GENERATOR = "counter";
+
+    public static LastUpdatedSignGenerator getInstance(Start start) {
+        return start.getResourceDistributor().getOrCreateResource(RESOURCE_KEY,
+                () -> create(Config.getConfig(start).getLastUpdatedSignGenerator()));
+    }
+
+    // also used by LastUpdatedSignGeneratorBenchmark
+    static LastUpdatedSignGenerator create(String type) {
+        if (COUNTER_GENERATOR.equals(type)) {
+            return new CounterGenerator();
+        }
+        return new RandomUUIDGenerator();
+    }
+
+    public abstract String next();
+
+    private static class RandomUUIDGenerator extends LastUpdatedSignGenerator {
+        @Override
+        public String next() {
+            return Utils.getUUID();
+        }
+    }
+
+    private static class CounterGenerator extends LastUpdatedSignGenerator {
+        private final long nodeId;
+        private final AtomicLong counter;
+
+        CounterGenerator() {
+            SecureRandom random = new SecureRandom();
+            this.nodeId = random.nextLong();
+            // starting at a random value as well means that even a node id collision between two processes is very
+            // unlikely to produce the same signs.
+            this.counter = new AtomicLong(random.nextLong());
+        }
+
+        @Override
+        public String next() {
+            return new UUID(nodeId, counter.getAndIncrement()).toString();
+        }
+    }
+}
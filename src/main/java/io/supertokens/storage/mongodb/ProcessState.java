@@ -22,7 +22,8 @@ import java.util.List;
 
 public class ProcessState extends ResourceDistributor.SingletonResource {
 
-    private static final String RESOURCE_KEY = "io.supertokens.storage.mongodb.ProcessState";
+    private static final ResourceDistributor.ResourceKey<ProcessState> RESOURCE_KEY =
+            new ResourceDistributor.ResourceKey<>(ProcessState.class);
     private final List<EventAndException> history = new ArrayList<>();
 
     private ProcessState() {
@@ -30,11 +31,7 @@ public class ProcessState extends ResourceDistributor.SingletonResource {
     }
 
     public static ProcessState getInstance(Start main) {
-        ResourceDistributor.SingletonResource instance = main.getResourceDistributor().getResource(RESOURCE_KEY);
-        if (instance == null) {
-            instance = main.getResourceDistributor().setResource(RESOURCE_KEY, new ProcessState());
-        }
-        return (ProcessState) instance;
+        return main.getResourceDistributor().getOrCreateResource(RESOURCE_KEY, ProcessState::new);
     }
 
     public synchronized EventAndException getLastEventByName(PROCESS_STATE processState) {
@@ -18,14 +18,18 @@
 package io.supertokens.storage.mongodb;
 
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.mongodb.MongoException;
 import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
-import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteManyModel;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.PushOptions;
+import com.mongodb.client.model.ReturnDocument;
 import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.Updates;
 import com.mongodb.client.result.DeleteResult;
@@ -36,34 +40,36 @@ import io.supertokens.pluginInterface.RowMapper;
 import io.supertokens.pluginInterface.exceptions.StorageQueryException;
 import io.supertokens.pluginInterface.session.SessionInfo;
 import io.supertokens.pluginInterface.session.noSqlStorage.SessionInfoWithLastUpdated;
+import io.supertokens.storage.mongodb.codecs.Codecs;
 import io.supertokens.storage.mongodb.config.Config;
-import io.supertokens.storage.mongodb.utils.Utils;
+import io.supertokens.storage.mongodb.utils.CompactEncoding;
+import org.bson.BSONException;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentWrapper;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
 import org.bson.conversions.Bson;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class Queries {
 
+    private static final int DELETE_SESSION_BATCH_SIZE = 1000;
+    private static final int SESSION_HANDLES_BATCH_SIZE = 1000;
+
     // to be used in testing only
     static void deleteAllCollections(Start start) {
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        {
-            MongoCollection collection = client.getCollection(Config.getConfig(start).getKeyValueCollection());
-            collection.deleteMany(new Document());
-        }
-        {
-            MongoCollection collection = client.getCollection(Config.getConfig(start).getSessionInfoCollection());
-            collection.deleteMany(new Document());
-        }
-        {
-            MongoCollection collection = client.getCollection(Config.getConfig(start).getJWTSigningKeysCollection());
-            collection.deleteMany(new Document());
-        }
+        CollectionRegistry collections = CollectionRegistry.getInstance(start);
+        collections.getKeyValues().deleteMany(new Document());
+        collections.getSessions().deleteMany(new Document());
+        collections.getJWTSigningKeys().deleteMany(new Document());
+        SessionCache.getInstance(start).invalidateAll();
     }
 
     private static boolean isDuplicateKeyException(Exception e) {
@@ -76,16 +82,14 @@ public class Queries {
         // .lastUpdatedSign, then it must only be an update operation and it should not create a new document. So we
         // do an update if that is not null. Else we do an insert.
 
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getKeyValueCollection());
+        MongoCollection<Document> collection = CollectionRegistry.getInstance(start).getKeyValues();
 
         if (info.lastUpdatedSign != null) {
             // here we only want to update an existing key value. We do not do upsert since we know that this key
             // already
             // exists. If it does not, we should not do anything and return false (since it's a part of a
             // "transaction").
-            Document toUpdate = new Document("$set", new Document("value", info.value)
-                    .append("created_at_time", info.createdAtTime).append("last_updated_sign", Utils.getUUID()));
+            Document toUpdate = new Document("$set", toStoredKeyValue(start, info));
 
             UpdateResult result = collection.updateOne(
                     Filters.and(Filters.eq("_id", key), Filters.eq("last_updated_sign", info.lastUpdatedSign)),
@@ -97,8 +101,9 @@ public class Queries {
         } else {
 
             try {
-                collection.insertOne(new Document("_id", key).append("value", info.value)
-                        .append("created_at_time", info.createdAtTime).append("last_updated_sign", Utils.getUUID()));
+                Document toInsert = new Document("_id", key);
+                toInsert.putAll(toStoredKeyValue(start, info));
+                collection.insertOne(toInsert);
 
                 // TODO: supposed to call this only if result.wasAcknowledged() is true. Why?
                 return true;
@@ -114,11 +119,9 @@ public class Queries {
 
     static void setKeyValue(Start start, String key, KeyValueInfo info) {
         // here we want to update or insert an existing key value
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getKeyValueCollection());
+        MongoCollection<Document> collection = CollectionRegistry.getInstance(start).getKeyValues();
 
-        Document toUpdate = new Document("$set", new Document("value", info.value)
-                .append("created_at_time", info.createdAtTime).append("last_updated_sign", Utils.getUUID()));
+        Document toUpdate = new Document("$set", toStoredKeyValue(start, info));
 
         UpdateResult result = collection.updateOne(Filters.eq("_id", key), toUpdate,
                 new UpdateOptions().upsert(true)); // the
@@ -141,9 +144,10 @@ public class Queries {
     }
 
     static boolean deleteSessionsOfUser(Start start, String userId) {
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getSessionInfoCollection());
+        MongoCollection<Document> collection = CollectionRegistry.getInstance(start).getSessions();
         DeleteResult result = collection.deleteMany(Filters.eq("user_id", userId));
+        SessionCache.getInstance(start).invalidateUser(userId);
+        SessionCounters.add(start, -result.getDeletedCount());
         return result.getDeletedCount() > 0;
     }
 
@@ -156,25 +160,23 @@ public class Queries {
     }
 
     static KeyValueInfoWithLastUpdated getKeyValue_Transaction(Start start, String key) throws StorageQueryException {
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getKeyValueCollection());
-        Document result = (Document) collection.find(Filters.eq("_id", key)).first();
-        if (result == null) {
-            return null;
+        MongoCollection<KeyValueInfoWithLastUpdated> collection = CollectionRegistry.getInstance(start)
+                .getKeyValuesAsKeyValueInfo();
+        try {
+            return collection.find(Filters.eq("_id", key)).first();
+        } catch (BSONException e) {
+            throw new StorageQueryException(e);
         }
-        return KeyValueInfoLastUpdatedRowMapper.getInstance().mapOrThrow(result);
     }
 
     static void deleteKeyValue(Start start, String key) {
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getKeyValueCollection());
+        MongoCollection<Document> collection = CollectionRegistry.getInstance(start).getKeyValues();
 
         collection.deleteOne(Filters.eq("_id", key));
     }
 
     static List<KeyValueInfo> getArrayKeyValue_Transaction(Start start, String key) throws StorageQueryException {
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getKeyValueCollection());
+        MongoCollection<Document> collection = CollectionRegistry.getInstance(start).getKeyValues();
         Document result = (Document) collection.find(Filters.eq("_id", key)).first();
         if (result == null) {
             return new ArrayList<KeyValueInfo>();
@@ -183,8 +185,7 @@ public class Queries {
     }
 
     static boolean removeArrayKeyValuesBefore(Start start, String key, long time) throws StorageQueryException {
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getKeyValueCollection());
+        MongoCollection<Document> collection = CollectionRegistry.getInstance(start).getKeyValues();
 
         UpdateResult result = collection.updateOne(Filters.eq("_id", key),
                 Updates.pullByFilter(new Document("keys", Filters.lte("created_at_time", time))));
@@ -198,8 +199,7 @@ public class Queries {
         // .lastUpdatedSign, then it must only be an update operation and it should not create a new document. So we
         // do an update if that is not null. Else we do an insert.
 
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getKeyValueCollection());
+        MongoCollection<Document> collection = CollectionRegistry.getInstance(start).getKeyValues();
 
         List<Document> keyList = Collections
                 .singletonList(new Document("value", info.value).append("created_at_time", info.createdAtTime));
@@ -238,31 +238,34 @@ public class Queries {
         }
     }
 
-    @SuppressWarnings("unchecked")
     static void createNewSession(Start start, String sessionHandle, String userId, String refreshTokenHash2,
                                  JsonObject userDataInDatabase, long expiry, JsonObject userDataInJWT,
                                  long createdAtTime, boolean useStaticKey) {
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getSessionInfoCollection());
-
-        collection.insertOne(new Document("_id", sessionHandle).append("user_id", userId)
-                .append("refresh_token_hash_2", refreshTokenHash2).append("session_data", userDataInDatabase.toString())
-                .append("expires_at", expiry).append("jwt_user_payload", userDataInJWT.toString())
-                .append("created_at_time", createdAtTime).append("last_updated_sign", Utils.getUUID())
-                .append("use_static_key", useStaticKey));
+        MongoCollection<SessionInfoWithLastUpdated> collection = CollectionRegistry.getInstance(start)
+                .getSessionsAsSessionInfoWithLastUpdated();
+
+        // the codec writes the fields in the format that the config asks for
+        SessionInfoWithLastUpdated toInsert = new SessionInfoWithLastUpdated(sessionHandle, userId, refreshTokenHash2,
+                userDataInDatabase, expiry, userDataInJWT, createdAtTime, useStaticKey,
+                LastUpdatedSignGenerator.getInstance(start).next());
+
+        if (Config.getConfig(start).getSessionCreateBatchSize() > 1) {
+            SessionInsertBatcher.getInstance(start).insert(toInsert);
+        } else {
+            collection.insertOne(toInsert);
+        }
+        SessionCounters.add(start, 1);
     }
 
     static SessionInfoWithLastUpdated getSessionInfo_Transaction(Start start, String sessionHandle)
             throws StorageQueryException {
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getSessionInfoCollection());
-
-        Document result = (Document) collection.find(Filters.eq("_id", sessionHandle)).first();
-        if (result == null) {
-            return null;
+        MongoCollection<SessionInfoWithLastUpdated> collection = CollectionRegistry.getInstance(start)
+                .getSessionsAsSessionInfoWithLastUpdated();
+        try {
+            return collection.find(Filters.eq("_id", sessionHandle)).first();
+        } catch (BSONException e) {
+            throw new StorageQueryException(e);
         }
-
-        return SessionInfoLastUpdatedRowMapper.getInstance().mapOrThrow(result);
     }
 
     static boolean updateSessionInfo_Transaction(Start start, String sessionHandle, String refreshTokenHash2,
@@ -273,79 +276,162 @@ public class Queries {
             throw new StorageQueryException(new Exception("lastUpdatedSign cannot be null for this update operation"));
         }
 
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getSessionInfoCollection());
-
-        Document toUpdate = new Document("$set", new Document("refresh_token_hash_2", refreshTokenHash2)
-                .append("expires_at", expiry).append("last_updated_sign", Utils.getUUID())
-                .append("use_static_key", useStaticKey));
+        MongoCollection<Document> collection = CollectionRegistry.getInstance(start).getSessions();
 
         UpdateResult result = collection.updateOne(
-                Filters.and(Filters.eq("_id", sessionHandle), Filters.eq("last_updated_sign", lastUpdatedSign)),
-                toUpdate, new UpdateOptions().upsert(false));
+                Filters.and(Filters.eq("_id", sessionHandle), sessionSignFilter(lastUpdatedSign)),
+                getSessionInfoUpdate(start, refreshTokenHash2, expiry, useStaticKey),
+                new UpdateOptions().upsert(false));
         // TODO: supposed to call this only if result.wasAcknowledged() is true. Why?
+        SessionCache.getInstance(start).invalidate(sessionHandle);
 
-        return result.getModifiedCount() == 1;
+        boolean updated = result.getModifiedCount() == 1;
+        SessionRefreshStats.getInstance(start).recordCompareAndSet(updated);
+        return updated;
+    }
+
+    // This does the same thing as updateSessionInfo_Transaction, but also returns the updated session in the same
+    // round trip, so that a caller does not need to call getSessionInfo_Transaction again after a refresh. Returns
+    // null if the session does not exist, or if lastUpdatedSign does not match anymore.
+    static SessionInfoWithLastUpdated updateSessionInfoAndGet_Transaction(Start start, String sessionHandle,
+                                                                          String refreshTokenHash2, long expiry,
+                                                                          String lastUpdatedSign,
+                                                                          boolean useStaticKey)
+            throws StorageQueryException {
+
+        if (lastUpdatedSign == null) {
+            throw new StorageQueryException(new Exception("lastUpdatedSign cannot be null for this update operation"));
+        }
+
+        MongoCollection<SessionInfoWithLastUpdated> collection = CollectionRegistry.getInstance(start)
+                .getSessionsAsSessionInfoWithLastUpdated();
+
+        SessionInfoWithLastUpdated result;
+        try {
+            result = collection.findOneAndUpdate(
+                    Filters.and(Filters.eq("_id", sessionHandle), sessionSignFilter(lastUpdatedSign)),
+                    getSessionInfoUpdate(start, refreshTokenHash2, expiry, useStaticKey),
+                    new FindOneAndUpdateOptions().upsert(false).returnDocument(ReturnDocument.AFTER));
+        } catch (BSONException e) {
+            throw new StorageQueryException(e);
+        } finally {
+            SessionCache.getInstance(start).invalidate(sessionHandle);
+        }
+
+        SessionRefreshStats.getInstance(start).recordCompareAndSet(result != null);
+        return result;
+    }
+
+    private static Document getSessionInfoUpdate(Start start, String refreshTokenHash2, long expiry,
+                                                 boolean useStaticKey) {
+        Document updated = new Document("refresh_token_hash_2", toStoredHash(start, refreshTokenHash2))
+                .append("expires_at", expiry).append("last_updated_sign", newSessionSign(start))
+                .append("use_static_key", useStaticKey);
+        if (Config.getConfig(start).useTTLIndexForSessionExpiry()) {
+            // this also migrates sessions created before the TTL index was enabled, since they are all refreshed
+            // at some point before they expire.
+            updated.append("expires_at_date", new Date(expiry));
+            return new Document("$set", updated);
+        }
+        // if the TTL mode was on before, the old expires_at_date would otherwise stay behind, and a TTL index that
+        // was not dropped would delete the session at its old expiry.
+        return new Document("$set", updated).append("$unset", new Document("expires_at_date", ""));
     }
 
     static int getNumberOfSessions(Start start) {
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getSessionInfoCollection());
+        if (SessionCounters.isEnabled(start)) {
+            return Math.toIntExact(SessionCounters.getTotal(start));
+        }
 
+        MongoCollection<Document> collection = CollectionRegistry.getInstance(start).getSessionsForStaleReads();
+
+        if (Config.getConfig(start).useEstimatedSessionCount()) {
+            // read from the collection's metadata, so this does not scan anything, but it can be off after an unclean
+            // shutdown, and in sharded clusters while chunks are being migrated.
+            return Math.toIntExact(collection.estimatedDocumentCount());
+        }
         return Math.toIntExact(collection.countDocuments()); // this is only used in testing, so this is OK.
     }
 
     static int deleteSession(Start start, String[] sessionHandles) {
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getSessionInfoCollection());
+        if (sessionHandles.length == 0) {
+            return 0;
+        }
 
-        List<Bson> filters = new ArrayList<>();
-        for (String sessionHandle : sessionHandles) {
-            filters.add(Filters.eq("_id", sessionHandle));
+        MongoCollection<Document> collection = CollectionRegistry.getInstance(start).getSessions();
+
+        // we split the handles into batches so that a user with a very large number of sessions does not produce
+        // a single filter that is too large. The batches are independent, so they are sent as one unordered bulk write.
+        List<DeleteManyModel<Document>> deletes = new ArrayList<>();
+        for (int i = 0; i < sessionHandles.length; i += DELETE_SESSION_BATCH_SIZE) {
+            int end = Math.min(i + DELETE_SESSION_BATCH_SIZE, sessionHandles.length);
+            deletes.add(new DeleteManyModel<>(Filters.in("_id", Arrays.asList(sessionHandles).subList(i, end))));
         }
-        if (filters.size() > 0) {
-            DeleteResult result = collection.deleteMany(Filters.or(filters));
 
-            return Math.toIntExact(result.getDeletedCount());
+        BulkWriteResult result = collection.bulkWrite(deletes, new BulkWriteOptions().ordered(false));
+        SessionCache cache = SessionCache.getInstance(start);
+        for (String sessionHandle : sessionHandles) {
+            cache.invalidate(sessionHandle);
         }
-        return 0;
+        SessionCounters.add(start, -result.getDeletedCount());
+        return result.getDeletedCount();
     }
 
     static String[] getAllNonExpiredSessionHandlesForUser(Start start, String userId) {
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getSessionInfoCollection());
-        List<String> temp = new ArrayList<>();
-        try (MongoCursor cursor = collection
+        // a session created within the staleness bound of mongodb_stale_reads_read_preference may be missed here
+        MongoCollection<Document> collection = CollectionRegistry.getInstance(start).getSessionsForStaleReads();
+        List<String> result = new ArrayList<>();
+        // we only project _id so that this is a covered query on the user_id_1_expires_at_1__id_1 index, and never
+        // has to load the session documents themselves.
+        try (MongoCursor<Document> cursor = collection
                 .find(Filters.and(Filters.eq("user_id", userId), Filters.gte("expires_at", System.currentTimeMillis())))
-                .iterator()) {
+                .projection(Projections.include("_id")).batchSize(SESSION_HANDLES_BATCH_SIZE).iterator()) {
             while (cursor.hasNext()) {
-                Document currDoc = (Document) cursor.next();
-                temp.add(currDoc.getString("_id"));
+                result.add(cursor.next().getString("_id"));
             }
         }
-        String[] finalResult = new String[temp.size()];
-        for (int i = 0; i < temp.size(); i++) {
-            finalResult[i] = temp.get(i);
-        }
-        return finalResult;
+        return result.toArray(new String[0]);
     }
 
     static void deleteAllExpiredSessions(Start start) {
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getSessionInfoCollection());
+        MongoCollection<Document> collection = CollectionRegistry.getInstance(start).getSessions();
+
+        Bson expiredFilter = Filters.lte("expires_at", System.currentTimeMillis());
+        if (Config.getConfig(start).useTTLIndexForSessionExpiry()) {
+            // MongoDB's TTL monitor removes sessions that have expires_at_date set, so here we only need to clean up
+            // sessions that were created before the TTL index was enabled and that were never refreshed since.
+            expiredFilter = Filters.and(Filters.exists("expires_at_date", false), expiredFilter);
+        }
 
-        collection.deleteMany(Filters.lte("expires_at", System.currentTimeMillis()));
+        long deleted = ExpiredSessionsCleanup.getInstance(start).run(start, collection, expiredFilter);
+        SessionCache.getInstance(start).removeExpired();
+        SessionCounters.add(start, -deleted);
+        SessionCounters.reconcile(start);
     }
 
     static SessionInfo getSession(Start start, String sessionHandle) throws StorageQueryException {
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getSessionInfoCollection());
+        CollectionRegistry collections = CollectionRegistry.getInstance(start);
+        SessionCache cache = SessionCache.getInstance(start);
+        try {
+            if (!cache.isEnabled()) {
+                return collections.getSessionsAsSessionInfo().find(Filters.eq("_id", sessionHandle)).first();
+            }
 
-        Document result = (Document) collection.find(Filters.eq("_id", sessionHandle)).first();
-        if (result == null) {
-            return null;
+            // the cache keeps the raw bytes of the document, which are immutable, and so can be shared between
+            // callers. Each of them gets its own SessionInfo decoded from them.
+            RawBsonDocument result = cache.get(sessionHandle);
+            if (result == null) {
+                long cacheVersion = cache.getVersion(sessionHandle);
+                result = collections.getSessionsAsRawBson().find(Filters.eq("_id", sessionHandle)).first();
+                if (result == null) {
+                    return null;
+                }
+                cache.put(sessionHandle, result, cacheVersion);
+            }
+            return Codecs.decodeSessionInfo(result);
+        } catch (BSONException e) {
+            throw new StorageQueryException(e);
         }
-        return SessionInfoRowMapper.getInstance().mapOrThrow(result);
     }
 
     static int updateSession(Start start, String sessionHandle, @Nullable JsonObject sessionData,
@@ -355,84 +441,65 @@ public class Queries {
             throw new StorageQueryException(new Exception("sessionData and jwtData are null"));
         }
 
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getSessionInfoCollection());
+        long coalescingWindow = Config.getConfig(start).getSessionUpdateCoalescingWindow();
+        if (coalescingWindow > 0) {
+            return SessionUpdateCoalescer.getInstance(start, coalescingWindow)
+                    .update(start, sessionHandle, sessionData, jwtData);
+        }
+        return updateSessionNow(start, sessionHandle, sessionData, jwtData);
+    }
 
-        Document updated = new Document("last_updated_sign", Utils.getUUID());
+    static int updateSessionNow(Start start, String sessionHandle, @Nullable JsonObject sessionData,
+                                @Nullable JsonObject jwtData) {
+        MongoCollection<Document> collection = CollectionRegistry.getInstance(start).getSessions();
+
+        Document updated = new Document("last_updated_sign", newSessionSign(start));
         if (sessionData != null) {
-            updated.append("session_data", sessionData.toString());
+            updated.append("session_data", toStoredPayload(start, sessionData));
         }
         if (jwtData != null) {
-            updated.append("jwt_user_payload", jwtData.toString());
+            updated.append("jwt_user_payload", toStoredPayload(start, jwtData));
         }
 
         UpdateResult result = collection.updateOne(Filters.eq("_id", sessionHandle), new Document("$set", updated),
                 new UpdateOptions().upsert(false));
         // TODO: supposed to call this only if result.wasAcknowledged() is true. Why?
+        SessionCache.getInstance(start).invalidate(sessionHandle);
 
         return result.getModifiedCount() == 1 ? 1 : 0;
     }
 
-    private static class SessionInfoRowMapper implements RowMapper<SessionInfo, Document> {
-        private static final SessionInfoRowMapper INSTANCE = new SessionInfoRowMapper();
-
-        private SessionInfoRowMapper() {
-        }
-
-        private static SessionInfoRowMapper getInstance() {
-            return INSTANCE;
-        }
-
-        @Override
-        public SessionInfo map(Document result) throws Exception {
-            JsonParser jp = new JsonParser();
-            return new SessionInfo(result.getString("_id"), result.getString("user_id"),
-                    result.getString("user_id"),
-                    result.getString("refresh_token_hash_2"),
-                    jp.parse(result.getString("session_data")).getAsJsonObject(), result.getLong("expires_at"),
-                    jp.parse(result.getString("jwt_user_payload")).getAsJsonObject(),
-                    result.getLong("created_at_time"),
-                    Boolean.TRUE.equals(result.getBoolean("use_static_key")));
-        }
+    private static Object toStoredPayload(Start start, JsonObject payload) {
+        return CollectionRegistry.getInstance(start).getSessionDocumentFormat().toStoredPayload(payload);
     }
 
-    private static class KeyValueInfoLastUpdatedRowMapper implements RowMapper<KeyValueInfoWithLastUpdated, Document> {
-        private static final KeyValueInfoLastUpdatedRowMapper INSTANCE = new KeyValueInfoLastUpdatedRowMapper();
-
-        private KeyValueInfoLastUpdatedRowMapper() {
-        }
-
-        private static KeyValueInfoLastUpdatedRowMapper getInstance() {
-            return INSTANCE;
-        }
-
-        @Override
-        public KeyValueInfoWithLastUpdated map(Document result) throws Exception {
-            return new KeyValueInfoWithLastUpdated(result.getString("value"), result.getLong("created_at_time"),
-                    result.getString("last_updated_sign"));
-        }
+    private static Object toStoredHash(Start start, String refreshTokenHash2) {
+        return CollectionRegistry.getInstance(start).getSessionDocumentFormat().toStoredHash(refreshTokenHash2);
     }
 
-    private static class SessionInfoLastUpdatedRowMapper implements RowMapper<SessionInfoWithLastUpdated, Document> {
-        private static final SessionInfoLastUpdatedRowMapper INSTANCE = new SessionInfoLastUpdatedRowMapper();
+    private static Object newSessionSign(Start start) {
+        String lastUpdatedSign = LastUpdatedSignGenerator.getInstance(start).next();
+        return CollectionRegistry.getInstance(start).getSessionDocumentFormat().toStoredSessionSign(lastUpdatedSign);
+    }
 
-        private SessionInfoLastUpdatedRowMapper() {
-        }
+    // the fields that are written for a single value key, in the same form as KeyValueInfoWithLastUpdatedCodec reads
+    private static BsonDocument toStoredKeyValue(Start start, KeyValueInfo info) {
+        return BsonDocumentWrapper.asBsonDocument(
+                new KeyValueInfoWithLastUpdated(info.value, info.createdAtTime, newKeyValueSign(start)),
+                CollectionRegistry.getInstance(start).getCodecRegistry());
+    }
 
-        private static SessionInfoLastUpdatedRowMapper getInstance() {
-            return INSTANCE;
-        }
+    private static String newKeyValueSign(Start start) {
+        return LastUpdatedSignGenerator.getInstance(start).next();
+    }
 
-        @Override
-        public SessionInfoWithLastUpdated map(Document result) throws Exception {
-            JsonParser jp = new JsonParser();
-            return new SessionInfoWithLastUpdated(result.getString("_id"), result.getString("user_id"),
-                    result.getString("refresh_token_hash_2"),
-                    jp.parse(result.getString("session_data")).getAsJsonObject(), result.getLong("expires_at"),
-                    jp.parse(result.getString("jwt_user_payload")).getAsJsonObject(), result.getLong("created_at_time"),
-                    Boolean.TRUE.equals(result.getBoolean("use_static_key")),
-                    result.getString("last_updated_sign"));
+    // the session may have been written with or without mongodb_use_compact_session_encoding, so we match either form
+    private static Bson sessionSignFilter(String lastUpdatedSign) {
+        Object encoded = CompactEncoding.encodeUUID(lastUpdatedSign);
+        if (encoded instanceof String) {
+            return Filters.eq("last_updated_sign", lastUpdatedSign);
         }
+        return Filters.in("last_updated_sign", lastUpdatedSign, encoded);
     }
 
     private static class KeyValueInfoArrayRowMapper implements RowMapper<List<KeyValueInfo>, Document> {
@@ -17,36 +17,76 @@
 
 package io.supertokens.storage.mongodb;
 
-import java.util.HashMap;
-import java.util.Map;
+import javax.annotation.Nullable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 // the purpose of this class is to tie singleton classes to s specific main instance. So that 
 // when the main instance dies, those singleton classes die too.
+//
+// Resources are looked up on every query, so reads do not take any lock.
 
 public class ResourceDistributor {
 
-    private final Object lock = new Object();
-    private Map<String, SingletonResource> resources = new HashMap<String, SingletonResource>();
+    private final ConcurrentMap<ResourceKey<?>, SingletonResource> resources = new ConcurrentHashMap<>();
 
-    public SingletonResource getResource(String key) {
-        return resources.get(key);
+    @Nullable
+    public <T extends SingletonResource> T getResource(ResourceKey<T> key) {
+        return key.type.cast(resources.get(key));
     }
 
-    public SingletonResource setResource(String key, SingletonResource resource) {
-        synchronized (lock) {
-            resources.putIfAbsent(key, resource);
-            return resource;
+    // returns the existing resource for this key, or atomically creates and stores one if there is none, so that
+    // concurrent callers always end up with the same instance. creator runs while the map is being updated, so it must
+    // be side effect free: it must not touch other resources, or start anything (like a thread) that may look this
+    // resource up, since that lookup can still return null. Resources that need to start something should create
+    // themselves, store themselves using setResource, and only start it if setResource returned their own instance.
+    public <T extends SingletonResource> T getOrCreateResource(ResourceKey<T> key, Supplier<? extends T> creator) {
+        T existing = getResource(key);
+        if (existing != null) {
+            return existing;
         }
+        return key.type.cast(resources.computeIfAbsent(key, ignored -> creator.get()));
     }
 
-    public void removeResource(String resourceKey) {
-        synchronized (lock) {
-            resources.remove(resourceKey);
-        }
+    // stores resource unless there already is one for this key, and returns the one that is stored in the end.
+    public <T extends SingletonResource> T setResource(ResourceKey<T> key, T resource) {
+        SingletonResource existing = resources.putIfAbsent(key, resource);
+        return existing == null ? resource : key.type.cast(existing);
+    }
+
+    public void removeResource(ResourceKey<?> key) {
+        resources.remove(key);
     }
 
     public static class SingletonResource {
 
     }
 
+    // identifies a resource by the name of its class, which is also what it is cast to when fetched
+    public static final class ResourceKey<T extends SingletonResource> {
+        private final String name;
+        private final Class<T> type;
+
+        public ResourceKey(Class<T> type) {
+            this.name = type.getName();
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ResourceKey && name.equals(((ResourceKey<?>) other).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
 }
@@ -0,0 +1,219 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import io.supertokens.storage.mongodb.config.Config;
+import io.supertokens.storage.mongodb.config.MongoDBConfig;
+import org.bson.RawBsonDocument;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * An optional, in process cache of session documents used by getSession. It is split into segments, each of which is
+ * a small LRU map guarded by its own lock, so that concurrent lookups of different sessions rarely contend.
+ *
+ * We cache the raw bytes of the documents rather than the decoded SessionInfo objects, since the JsonObjects in a
+ * SessionInfo are mutable and must not be shared between callers.
+ *
+ * An entry lives for at most mongodb_session_cache_ttl_ms, and never beyond the session's own expiry. Every query
+ * that modifies or deletes sessions invalidates the affected entries. Since invalidations are only local to this
+ * process, other SuperTokens instances that use the same database can see stale data for up to the TTL.
+ */
+public class SessionCache extends ResourceDistributor.SingletonResource {
+
+    private static final ResourceDistributor.ResourceKey<SessionCache> RESOURCE_KEY =
+            new ResourceDistributor.ResourceKey<>(SessionCache.class);
+    private static final int NUMBER_OF_SEGMENTS = 16;
+    private static final int NUMBER_OF_VERSION_STRIPES = 1024;
+
+    private final Segment[] segments;
+    private final long ttlMs;
+    private final boolean enabled;
+
+    // a read from the database only populates the cache if its session was not invalidated while the read was in
+    // flight, so that a read racing with a write can never put the old document back. Versions are kept per key, in a
+    // fixed number of stripes so that they do not grow with the number of sessions, which means that a write only
+    // stops the reads of sessions that land in the same stripe from being cached. Invalidations that are not for a
+    // single session (all sessions of a user, or everything) bump globalVersion instead, which stops all of them.
+    // Both only ever go up, so their sum changes whenever either of them does.
+    private final AtomicLongArray keyVersions = new AtomicLongArray(NUMBER_OF_VERSION_STRIPES);
+    private final AtomicLong globalVersion = new AtomicLong(0);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private SessionCache(MongoDBConfig config) {
+        this(config.getSessionCacheSize(), config.getSessionCacheTTL());
+    }
+
+    SessionCache(int maxSize, long ttlMs) {
+        this.enabled = maxSize > 0;
+        this.ttlMs = ttlMs;
+        this.segments = new Segment[NUMBER_OF_SEGMENTS];
+        int segmentSize = Math.max(1, (maxSize + NUMBER_OF_SEGMENTS - 1) / NUMBER_OF_SEGMENTS);
+        for (int i = 0; i < NUMBER_OF_SEGMENTS; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    public static SessionCache getInstance(Start start) {
+        return start.getResourceDistributor()
+                .getOrCreateResource(RESOURCE_KEY, () -> new SessionCache(Config.getConfig(start)));
+    }
+
+    private static int spread(String sessionHandle) {
+        int hash = sessionHandle.hashCode();
+        hash ^= (hash >>> 16);
+        return hash & 0x7fffffff;
+    }
+
+    private Segment segmentFor(String sessionHandle) {
+        return segments[spread(sessionHandle) % NUMBER_OF_SEGMENTS];
+    }
+
+    private static int versionStripeFor(String sessionHandle) {
+        return spread(sessionHandle) % NUMBER_OF_VERSION_STRIPES;
+    }
+
+    RawBsonDocument get(String sessionHandle) {
+        if (!enabled) {
+            return null;
+        }
+        Segment segment = segmentFor(sessionHandle);
+        long now = System.currentTimeMillis();
+        synchronized (segment) {
+            Entry entry = segment.get(sessionHandle);
+            if (entry != null) {
+                if (entry.validUntil > now) {
+                    hits.increment();
+                    return entry.document;
+                }
+                segment.remove(sessionHandle);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    // to be read before the session is read from the database, and passed to put along with what was read
+    long getVersion(String sessionHandle) {
+        return globalVersion.get() + keyVersions.get(versionStripeFor(sessionHandle));
+    }
+
+    void put(String sessionHandle, RawBsonDocument document, long versionBeforeRead) {
+        if (!enabled) {
+            return;
+        }
+        long validUntil = Math.min(System.currentTimeMillis() + ttlMs, document.getNumber("expires_at").longValue());
+        Segment segment = segmentFor(sessionHandle);
+        synchronized (segment) {
+            // checked inside the lock, since invalidations bump the version before taking it
+            if (getVersion(sessionHandle) != versionBeforeRead) {
+                return;
+            }
+            segment.put(sessionHandle, new Entry(document, validUntil));
+        }
+    }
+
+    void invalidate(String sessionHandle) {
+        if (!enabled) {
+            return;
+        }
+        keyVersions.incrementAndGet(versionStripeFor(sessionHandle));
+        Segment segment = segmentFor(sessionHandle);
+        synchronized (segment) {
+            segment.remove(sessionHandle);
+        }
+    }
+
+    void invalidateUser(String userId) {
+        if (!enabled) {
+            return;
+        }
+        globalVersion.incrementAndGet();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.values().removeIf(entry -> userId.equals(entry.document.getString("user_id").getValue()));
+            }
+        }
+    }
+
+    void invalidateAll() {
+        if (!enabled) {
+            return;
+        }
+        globalVersion.incrementAndGet();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    void removeExpired() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.values().removeIf(entry -> entry.validUntil <= now);
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private static class Entry {
+        final RawBsonDocument document;
+        final long validUntil;
+
+        Entry(RawBsonDocument document, long validUntil) {
+            this.document = document;
+            this.validUntil = validUntil;
+        }
+    }
+
+    private static class Segment extends LinkedHashMap<String, Entry> {
+        private final int maxSize;
+
+        Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
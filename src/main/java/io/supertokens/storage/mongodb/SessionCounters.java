@@ -0,0 +1,96 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import io.supertokens.storage.mongodb.config.Config;
+import io.supertokens.storage.mongodb.config.MongoDBConfig;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Keeps the number of sessions in NUMBER_OF_SHARDS counter documents in the key value collection when
+ * mongodb_use_session_counters is enabled, so that getNumberOfSessions reads a handful of small documents instead of
+ * counting the whole session collection. Every create and delete adds to one of the counters, picked at random, so
+ * that concurrent writes do not all wait on the same document.
+ *
+ * A counter is updated right after the sessions themselves, so a process that dies in between, or sessions deleted
+ * outside of the plugin, make the total drift. reconcile fixes that each time deleteAllExpiredSessions runs. This is
+ * not used in the TTL expiry mode, since MongoDB then deletes sessions without going through the plugin, and
+ * getNumberOfSessions counts the collection instead.
+ */
+class SessionCounters {
+
+    private static final int NUMBER_OF_SHARDS = 16;
+    private static final List<String> SHARD_IDS;
+
+    static {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_SHARDS; i++) {
+            ids.add("session_count_" + i);
+        }
+        SHARD_IDS = Collections.unmodifiableList(ids);
+    }
+
+    static boolean isEnabled(Start start) {
+        MongoDBConfig config = Config.getConfig(start);
+        return config.useSessionCounters() && !config.useTTLIndexForSessionExpiry();
+    }
+
+    static void add(Start start, long delta) {
+        if (delta == 0 || !isEnabled(start)) {
+            return;
+        }
+        increment(start, SHARD_IDS.get(ThreadLocalRandom.current().nextInt(NUMBER_OF_SHARDS)), delta);
+    }
+
+    private static void increment(Start start, String shardId, long delta) {
+        CollectionRegistry.getInstance(start).getKeyValues().updateOne(Filters.eq("_id", shardId),
+                Updates.inc("count", delta), new UpdateOptions().upsert(true));
+    }
+
+    static long getTotal(Start start) {
+        long total = 0;
+        for (Document shard : CollectionRegistry.getInstance(start).getKeyValues()
+                .find(Filters.in("_id", SHARD_IDS))) {
+            total += shard.get("count", Number.class).longValue();
+        }
+        return total;
+    }
+
+    // Sessions that are created or deleted between reading the counters and counting the sessions are counted twice
+    // or not at all, so this can leave the total off by however many that was. The next run corrects it again.
+    static void reconcile(Start start) {
+        if (!isEnabled(start)) {
+            return;
+        }
+        long counted = getTotal(start);
+        MongoCollection<Document> sessions = CollectionRegistry.getInstance(start).getSessions();
+        long actual = sessions.countDocuments();
+        if (actual != counted) {
+            increment(start, SHARD_IDS.get(0), actual - counted);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import io.supertokens.pluginInterface.session.noSqlStorage.SessionInfoWithLastUpdated;
+import io.supertokens.storage.mongodb.config.Config;
+import io.supertokens.storage.mongodb.output.Logging;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Group commit for createNewSession. Callers put their session in a queue and wait, while a single flusher
+ * thread collects documents until either mongodb_session_create_batch_size documents are queued, or
+ * mongodb_session_create_linger_ms has passed since the first one, and then inserts all of them using one unordered
+ * insertMany.
+ *
+ * If some of the documents fail (for example, because of a duplicate session handle), only the callers of those
+ * documents get an error, and the rest of the batch is still inserted.
+ */
+public class SessionInsertBatcher extends ResourceDistributor.SingletonResource {
+
+    private static final ResourceDistributor.ResourceKey<SessionInsertBatcher> RESOURCE_KEY =
+            new ResourceDistributor.ResourceKey<>(SessionInsertBatcher.class);
+    private static final long CLOSE_CHECK_INTERVAL_MS = 100;
+
+    private final Start start;
+    private final int batchSize;
+    private final long lingerMs;
+    private final BlockingQueue<PendingInsert> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private volatile boolean closed = false;
+
+    private final LongAdder insertedDocuments = new LongAdder();
+    private final LongAdder batchesWritten = new LongAdder();
+
+    private SessionInsertBatcher(Start start, int batchSize, long lingerMs) {
+        this.start = start;
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.flusher = new Thread(this::runFlusher, "mongodb-session-insert-batcher");
+        this.flusher.setDaemon(true);
+    }
+
+    static SessionInsertBatcher getInstance(Start start) {
+        SessionInsertBatcher existing = getInstanceIfExists(start);
+        if (existing != null) {
+            return existing;
+        }
+        // the flusher is only started for the instance that actually gets stored, so there is only ever one of them.
+        SessionInsertBatcher created = new SessionInsertBatcher(start,
+                Config.getConfig(start).getSessionCreateBatchSize(),
+                Config.getConfig(start).getSessionCreateLingerMs());
+        SessionInsertBatcher stored = start.getResourceDistributor().setResource(RESOURCE_KEY, created);
+        if (stored == created) {
+            created.flusher.start();
+        }
+        return stored;
+    }
+
+    @Nullable
+    public static SessionInsertBatcher getInstanceIfExists(Start start) {
+        return start.getResourceDistributor().getResource(RESOURCE_KEY);
+    }
+
+    void insert(SessionInfoWithLastUpdated session) {
+        PendingInsert pending = new PendingInsert(session);
+        queue.add(pending);
+        if (closed && queue.remove(pending)) {
+            // the flusher may have already stopped, so we write this one ourselves.
+            getCollection().insertOne(session);
+            return;
+        }
+        try {
+            pending.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MongoInterruptedException("Interrupted while waiting for the session to be inserted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MongoException) {
+                throw (MongoException) e.getCause();
+            }
+            throw new MongoException("Failed to insert session", e.getCause());
+        }
+    }
+
+    private MongoCollection<SessionInfoWithLastUpdated> getCollection() {
+        if (Start.isTesting) {
+            MongoCollection<SessionInfoWithLastUpdated> testValue = ConnectionPoolTestContent.getInstance(start)
+                    .getValue(ConnectionPoolTestContent.SESSION_INSERT_BATCHER_COLLECTION);
+            if (testValue != null) {
+                return testValue;
+            }
+        }
+        return CollectionRegistry.getInstance(start).getSessionsAsSessionInfoWithLastUpdated();
+    }
+
+    private void runFlusher() {
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingInsert first = queue.poll(CLOSE_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                write(collectBatch(first));
+            } catch (InterruptedException e) {
+                // we only stop once closed and everything in the queue has been written.
+            } catch (Throwable e) {
+                Logging.error(start, "Unexpected error while inserting sessions", false,
+                        e instanceof Exception ? (Exception) e : new Exception(e));
+            }
+        }
+    }
+
+    // waits for more inserts until the batch is full or the linger time is over. Once closed, it only takes what is
+    // already queued, so that close does not have to wait for the linger time.
+    private List<PendingInsert> collectBatch(PendingInsert first) {
+        List<PendingInsert> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        while (batch.size() < batchSize) {
+            long remaining = deadline - System.nanoTime();
+            PendingInsert next;
+            if (remaining <= 0 || closed) {
+                next = queue.poll();
+                if (next == null) {
+                    break;
+                }
+            } else {
+                try {
+                    next = queue.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(CLOSE_CHECK_INTERVAL_MS)),
+                            TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    // what we have so far still has to be written
+                    break;
+                }
+                if (next == null) {
+                    continue;
+                }
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void write(List<PendingInsert> batch) {
+        List<SessionInfoWithLastUpdated> sessions = new ArrayList<>(batch.size());
+        for (PendingInsert pending : batch) {
+            sessions.add(pending.session);
+        }
+        try {
+            getCollection().insertMany(sessions, new InsertManyOptions().ordered(false));
+            for (PendingInsert pending : batch) {
+                pending.result.complete(null);
+            }
+            insertedDocuments.add(batch.size());
+        } catch (MongoBulkWriteException e) {
+            if (e.getWriteConcernError() != null) {
+                failAll(batch, e);
+                return;
+            }
+            MongoException[] errors = new MongoException[batch.size()];
+            for (BulkWriteError error : e.getWriteErrors()) {
+                errors[error.getIndex()] = new MongoWriteException(error, e.getServerAddress());
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                if (errors[i] == null) {
+                    batch.get(i).result.complete(null);
+                    insertedDocuments.increment();
+                } else {
+                    batch.get(i).result.completeExceptionally(errors[i]);
+                }
+            }
+        } catch (Exception e) {
+            failAll(batch, e);
+        } finally {
+            batchesWritten.increment();
+        }
+    }
+
+    private static void failAll(List<PendingInsert> batch, Exception e) {
+        for (PendingInsert pending : batch) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    // waits for everything that is already queued to be inserted. Called when the storage layer is being closed.
+    // The closed instance is kept, so that later inserts are written directly instead of starting a new flusher.
+    static void close(Start start) {
+        SessionInsertBatcher instance = getInstanceIfExists(start);
+        if (instance == null) {
+            return;
+        }
+        instance.closed = true;
+        try {
+            instance.flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getInsertedDocumentCount() {
+        return insertedDocuments.sum();
+    }
+
+    public long getBatchesWrittenCount() {
+        return batchesWritten.sum();
+    }
+
+    private static class PendingInsert {
+        final SessionInfoWithLastUpdated session;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        PendingInsert(SessionInfoWithLastUpdated session) {
+            this.session = session;
+        }
+    }
+}
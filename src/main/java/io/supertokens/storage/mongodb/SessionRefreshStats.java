@@ -0,0 +1,57 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts the outcome of the compare and set on last_updated_sign that is done when a session is refreshed. A high
+// number of failures means that the same session is being refreshed concurrently.
+public class SessionRefreshStats extends ResourceDistributor.SingletonResource {
+
+    private static final ResourceDistributor.ResourceKey<SessionRefreshStats> RESOURCE_KEY =
+            new ResourceDistributor.ResourceKey<>(SessionRefreshStats.class);
+
+    private final LongAdder successfulUpdates = new LongAdder();
+    private final LongAdder failedUpdates = new LongAdder();
+
+    private SessionRefreshStats() {
+
+    }
+
+    public static SessionRefreshStats getInstance(Start start) {
+        return start.getResourceDistributor().getOrCreateResource(RESOURCE_KEY, SessionRefreshStats::new);
+    }
+
+    void recordCompareAndSet(boolean succeeded) {
+        if (succeeded) {
+            successfulUpdates.increment();
+        } else {
+            failedUpdates.increment();
+        }
+    }
+
+    public long getSuccessfulUpdateCount() {
+        return successfulUpdates.sum();
+    }
+
+    // this also includes updates of sessions that no longer exist, since we cannot tell the two apart without
+    // another query.
+    public long getFailedUpdateCount() {
+        return failedUpdates.sum();
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import com.google.gson.JsonObject;
+import com.mongodb.MongoException;
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Merges concurrent updateSession calls for the same session handle into a single write.
+ *
+ * An update for a handle that has no write in flight is written right away. Updates for the same handle that come in
+ * while that write is in flight are merged into one pending update (the last session_data and the last
+ * jwt_user_payload win), which is written once the write in flight is done, and at least
+ * mongodb_session_update_coalescing_window_ms after it started. So a single update never waits, and a burst of them
+ * turns into at most one write per window.
+ *
+ * Every caller only returns once the write that contains its update is done, and gets the result of that write, so
+ * reads that happen after updateSession returns always see the update.
+ *
+ * This does not use any threads of its own - each write is done on the thread of the caller that started it. Once the
+ * storage layer is being closed, pending updates are written without waiting for the window, and new updates are
+ * written directly.
+ */
+public class SessionUpdateCoalescer extends ResourceDistributor.SingletonResource {
+
+    private static final ResourceDistributor.ResourceKey<SessionUpdateCoalescer> RESOURCE_KEY =
+            new ResourceDistributor.ResourceKey<>(SessionUpdateCoalescer.class);
+    private static final long CLOSE_CHECK_INTERVAL_MS = 10;
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    private final long windowMs;
+    private final CountDownLatch closing = new CountDownLatch(1);
+    private volatile boolean closed = false;
+
+    private final LongAdder requestedUpdates = new LongAdder();
+    private final LongAdder writtenUpdates = new LongAdder();
+
+    private SessionUpdateCoalescer(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    static SessionUpdateCoalescer getInstance(Start start, long windowMs) {
+        return start.getResourceDistributor()
+                .getOrCreateResource(RESOURCE_KEY, () -> new SessionUpdateCoalescer(windowMs));
+    }
+
+    @Nullable
+    public static SessionUpdateCoalescer getInstanceIfExists(Start start) {
+        return start.getResourceDistributor().getResource(RESOURCE_KEY);
+    }
+
+    int update(Start start, String sessionHandle, @Nullable JsonObject sessionData, @Nullable JsonObject jwtData)
+            throws StorageQueryException {
+        requestedUpdates.increment();
+        if (closed) {
+            writtenUpdates.increment();
+            return Queries.updateSessionNow(start, sessionHandle, sessionData, jwtData);
+        }
+
+        // what this call has to do, decided inside compute: write its update right away, write the pending update
+        // once the one in flight is done, or only wait for the pending update it was merged into.
+        PendingUpdate[] toWrite = new PendingUpdate[1];
+        PendingUpdate[] toWaitFor = new PendingUpdate[1];
+        slots.compute(sessionHandle, (handle, existing) -> {
+            if (existing == null) {
+                Slot created = new Slot();
+                created.inFlight = new PendingUpdate(sessionData, jwtData);
+                toWrite[0] = created.inFlight;
+                return created;
+            }
+            if (existing.pending == null) {
+                existing.pending = new PendingUpdate(sessionData, jwtData);
+                toWrite[0] = existing.pending;
+                toWaitFor[0] = existing.inFlight;
+                return existing;
+            }
+            existing.pending.merge(sessionData, jwtData);
+            toWaitFor[0] = existing.pending;
+            return existing;
+        });
+
+        if (toWrite[0] == null) {
+            return waitForResult(toWaitFor[0]);
+        }
+        if (toWaitFor[0] != null) {
+            waitUntilWritable(toWaitFor[0]);
+            slots.compute(sessionHandle, (handle, existing) -> {
+                existing.inFlight = existing.pending;
+                existing.pending = null;
+                return existing;
+            });
+        }
+        write(start, sessionHandle, toWrite[0]);
+        return waitForResult(toWrite[0]);
+    }
+
+    // waits for the write in flight to be done, and for the rest of the window that started with it
+    private void waitUntilWritable(PendingUpdate inFlight) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                inFlight.result.handle((result, e) -> null).get();
+                long remaining = inFlight.writeStartedAt + windowMs - System.currentTimeMillis();
+                if (remaining > 0) {
+                    // returns early once the storage layer is being closed
+                    closing.await(remaining, TimeUnit.MILLISECONDS);
+                }
+                break;
+            } catch (InterruptedException e) {
+                // we still write the update, just earlier than planned.
+                interrupted = true;
+                if (inFlight.result.isDone()) {
+                    break;
+                }
+            } catch (ExecutionException e) {
+                // cannot happen, since handle() turns failures into a result
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(Start start, String sessionHandle, PendingUpdate update) {
+        update.writeStartedAt = System.currentTimeMillis();
+        writtenUpdates.increment();
+        Integer result = null;
+        Exception failure = null;
+        try {
+            result = Queries.updateSessionNow(start, sessionHandle, update.sessionData, update.jwtData);
+        } catch (Exception e) {
+            failure = e;
+        }
+        // the slot is updated before the result is completed, so that the caller of the pending update, which waits
+        // for this result, finds this write no longer in flight when it takes over.
+        slots.compute(sessionHandle, (handle, existing) -> {
+            existing.inFlight = null;
+            return existing.pending == null ? null : existing;
+        });
+        if (failure == null) {
+            update.result.complete(result);
+        } else {
+            update.result.completeExceptionally(failure);
+        }
+    }
+
+    private static int waitForResult(PendingUpdate update) throws StorageQueryException {
+        try {
+            return update.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageQueryException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof MongoException) {
+                throw (MongoException) cause;
+            }
+            if (cause instanceof StorageQueryException) {
+                throw (StorageQueryException) cause;
+            }
+            throw new StorageQueryException(e);
+        }
+    }
+
+    // makes pending updates get written right away, and waits for them. Called when the storage layer is being closed.
+    // The closed instance is kept, so that later updates are written directly instead of creating a new one.
+    static void close(Start start) {
+        SessionUpdateCoalescer instance = getInstanceIfExists(start);
+        if (instance == null) {
+            return;
+        }
+        instance.closed = true;
+        instance.closing.countDown();
+        try {
+            while (!instance.slots.isEmpty()) {
+                Thread.sleep(CLOSE_CHECK_INTERVAL_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getRequestedUpdateCount() {
+        return requestedUpdates.sum();
+    }
+
+    public long getWrittenUpdateCount() {
+        return writtenUpdates.sum();
+    }
+
+    // the state of one session handle. Only modified inside ConcurrentHashMap.compute, and removed once nothing is in
+    // flight or pending for it.
+    private static class Slot {
+        @Nullable
+        PendingUpdate inFlight;
+        @Nullable
+        PendingUpdate pending;
+    }
+
+    private static class PendingUpdate {
+        // only modified inside ConcurrentHashMap.compute, and only read once the update has become the one in flight,
+        // after which it cannot be merged into anymore
+        @Nullable
+        JsonObject sessionData;
+        @Nullable
+        JsonObject jwtData;
+        volatile long writeStartedAt;
+        final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        PendingUpdate(@Nullable JsonObject sessionData, @Nullable JsonObject jwtData) {
+            this.sessionData = sessionData;
+            this.jwtData = jwtData;
+        }
+
+        void merge(@Nullable JsonObject sessionData, @Nullable JsonObject jwtData) {
+            if (sessionData != null) {
+                this.sessionData = sessionData;
+            }
+            if (jwtData != null) {
+                this.jwtData = jwtData;
+            }
+        }
+    }
+}
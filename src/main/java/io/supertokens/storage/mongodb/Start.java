@@ -34,6 +34,7 @@ import io.supertokens.pluginInterface.session.noSqlStorage.SessionInfoWithLastUp
 import io.supertokens.pluginInterface.session.noSqlStorage.SessionNoSQLStorage_1;
 import io.supertokens.storage.mongodb.config.Config;
 import io.supertokens.storage.mongodb.config.MongoDBConfig;
+import io.supertokens.storage.mongodb.indexes.IndexManager;
 import io.supertokens.storage.mongodb.output.Logging;
 import io.supertokens.storage.mongodb.queries.JWTSigningQueries;
 import org.slf4j.LoggerFactory;
@@ -76,6 +77,10 @@ public class Start implements SessionNoSQLStorage_1, JWTRecipeNoSQLStorage_1 {
 
     @Override
     public void close() {
+        BackgroundInitialiser.close(this);
+        AsyncStorage.close(this);
+        SessionUpdateCoalescer.close(this);
+        SessionInsertBatcher.close(this);
         ConnectionPool.close(this);
     }
 
@@ -154,6 +159,21 @@ public class Start implements SessionNoSQLStorage_1, JWTRecipeNoSQLStorage_1 {
         }
     }
 
+    // Not a part of the plugin interface. This combines updateSessionInfo_Transaction with reading back the updated
+    // session, in a single round trip to the database.
+    public SessionInfoWithLastUpdated updateSessionInfoAndGet_Transaction(String sessionHandle,
+                                                                          String refreshTokenHash2, long expiry,
+                                                                          String lastUpdatedSign,
+                                                                          boolean useStaticKey)
+            throws StorageQueryException {
+        try {
+            return Queries.updateSessionInfoAndGet_Transaction(this, sessionHandle, refreshTokenHash2, expiry,
+                    lastUpdatedSign, useStaticKey);
+        } catch (MongoException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
     @Override
     public SessionInfoWithLastUpdated getSessionInfo_Transaction(String sessionHandle) throws StorageQueryException {
         try {
@@ -238,6 +258,12 @@ public class Start implements SessionNoSQLStorage_1, JWTRecipeNoSQLStorage_1 {
         }
     }
 
+    // Not a part of the plugin interface. Returns versions of the session, key value and JWT signing key queries that
+    // run on a separate executor and return CompletableFutures, instead of blocking the calling thread.
+    public AsyncStorage getAsyncStorage() {
+        return AsyncStorage.getInstance(this);
+    }
+
     public ResourceDistributor getResourceDistributor() {
         return resourceDistributor;
     }
@@ -309,7 +335,22 @@ public class Start implements SessionNoSQLStorage_1, JWTRecipeNoSQLStorage_1 {
 
     @Override
     public void initStorage(boolean shouldWait, List<TenantIdentifier> tenantIdentifiers) throws DbInitException {
+        if (ConnectionPool.isAlreadyInitialised(this)) {
+            return;
+        }
+        if (Config.getConfig(this).initialiseInBackground()) {
+            BackgroundInitialiser.start(this, this::initialiseStorage);
+            return;
+        }
+        initialiseStorage(() -> {
+        });
+    }
+
+    private void initialiseStorage(Runnable connectionPoolReady) throws DbInitException {
         ConnectionPool.initPool(this);
+        connectionPoolReady.run();
+        IndexManager.createIndexesIfNeeded(this);
+        ConnectionPoolWarmUp.warmUp(this);
     }
 
     @Override
@@ -363,8 +404,10 @@ public class Start implements SessionNoSQLStorage_1, JWTRecipeNoSQLStorage_1 {
         if (shutdownHook != null) {
             return;
         }
+        // this is the main thread, unless the storage layer is being initialised in the background
+        Thread initThread = Thread.currentThread();
         shutdownHook = new Thread(() -> {
-            mainThread.interrupt();
+            initThread.interrupt();
         });
         Runtime.getRuntime().addShutdownHook(shutdownHook);
     }
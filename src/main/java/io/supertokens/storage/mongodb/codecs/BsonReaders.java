@@ -0,0 +1,143 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.codecs;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import io.supertokens.storage.mongodb.utils.CompactEncoding;
+import org.bson.BsonBinary;
+import org.bson.BsonInvalidOperationException;
+import org.bson.BsonReader;
+import org.bson.BsonSerializationException;
+import org.bson.BsonType;
+import org.bson.types.Binary;
+
+/*
+ * Reads the values of our own collections straight from a BsonReader. These accept every format that the plugin has
+ * ever written for a field, since a collection can contain documents written with different configs.
+ */
+class BsonReaders {
+
+    private static final String EMPTY_JSON_OBJECT = "{}";
+    // JsonParser does not hold any state, so it is safe to share across threads
+    private static final JsonParser JSON_PARSER = new JsonParser();
+
+    // session_data and jwt_user_payload: either a JSON string or a sub document
+    static JsonObject readPayload(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.DOCUMENT) {
+            return readJsonObject(reader);
+        }
+        String json = reader.readString();
+        // JsonObject is final, so it cannot be parsed lazily. Most sessions have empty payloads though, and for those
+        // we can skip the parser entirely.
+        if (EMPTY_JSON_OBJECT.equals(json)) {
+            return new JsonObject();
+        }
+        // thrown as a BSONException like every other problem with a stored document, so that the queries turn it into
+        // a StorageQueryException
+        try {
+            return JSON_PARSER.parse(json).getAsJsonObject();
+        } catch (JsonParseException | IllegalStateException e) {
+            throw new BsonSerializationException("Stored payload is not a JSON object: " + e.getMessage());
+        }
+    }
+
+    // refresh_token_hash_2: either a hex string or its bytes
+    static String readHex(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.BINARY) {
+            return CompactEncoding.decodeHex(toBinary(reader.readBinaryData()));
+        }
+        return reader.readString();
+    }
+
+    // last_updated_sign of sessions: either a UUID string or its bytes
+    static String readUUID(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.BINARY) {
+            return CompactEncoding.decodeUUID(toBinary(reader.readBinaryData()));
+        }
+        return reader.readString();
+    }
+
+    static long readLong(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT64:
+                return reader.readInt64();
+            case INT32:
+                return reader.readInt32();
+            default:
+                throw new BsonInvalidOperationException(
+                        "Expected a long, but found " + reader.getCurrentBsonType());
+        }
+    }
+
+    private static Binary toBinary(BsonBinary binary) {
+        return new Binary(binary.getType(), binary.getData());
+    }
+
+    // the inverse of JsonDocumentConverter.toDocument, which is what the payloads were written with
+    private static JsonObject readJsonObject(BsonReader reader) {
+        JsonObject result = new JsonObject();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            result.add(name, readJsonElement(reader));
+        }
+        reader.readEndDocument();
+        return result;
+    }
+
+    private static JsonElement readJsonElement(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case NULL:
+                reader.readNull();
+                return JsonNull.INSTANCE;
+            case DOCUMENT:
+                return readJsonObject(reader);
+            case ARRAY: {
+                JsonArray array = new JsonArray();
+                reader.readStartArray();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    array.add(readJsonElement(reader));
+                }
+                reader.readEndArray();
+                return array;
+            }
+            case BOOLEAN:
+                return new JsonPrimitive(reader.readBoolean());
+            case STRING:
+                return new JsonPrimitive(reader.readString());
+            case INT32:
+                return new JsonPrimitive(reader.readInt32());
+            case INT64:
+                return new JsonPrimitive(reader.readInt64());
+            case DOUBLE:
+                return new JsonPrimitive(reader.readDouble());
+            case DECIMAL128:
+                return new JsonPrimitive(reader.readDecimal128().bigDecimalValue());
+            default:
+                // we never write any other type into a payload
+                throw new BsonInvalidOperationException(
+                        "Unexpected type " + reader.getCurrentBsonType() + " in session payload");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+package io.supertokens.storage.mongodb.codecs;
+
+import org.bson.BsonBinary;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.Binary;
+
+// writes the values that SessionDocumentFormat gives back, which are always a string, a Binary or a Document
+class BsonWriters {
+
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec();
+
+    static void writeStored(BsonWriter writer, String name, Object value, EncoderContext encoderContext) {
+        writer.writeName(name);
+        if (value instanceof Binary) {
+            Binary binary = (Binary) value;
+            writer.writeBinaryData(new BsonBinary(binary.getType(), binary.getData()));
+        } else if (value instanceof Document) {
+            encoderContext.encodeWithChildContext(DOCUMENT_CODEC, writer, (Document) value);
+        } else {
+            writer.writeString((String) value);
+        }
+    }
+}
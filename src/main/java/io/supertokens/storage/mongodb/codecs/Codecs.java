@@ -0,0 +1,51 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.codecs;
+
+import com.mongodb.MongoClientSettings;
+import io.supertokens.pluginInterface.session.SessionInfo;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/*
+ * Codecs that decode our documents straight into the plugin interface classes, without building an intermediate
+ * Document (and boxing every value in it) first, and that encode whole records the same way. CollectionRegistry holds
+ * collections that use them.
+ *
+ * What gets written for a session depends on the config (for example, mongodb_store_session_payloads_as_documents and
+ * mongodb_use_compact_session_encoding), so the registry is created from a SessionDocumentFormat. Partial updates
+ * still build Documents, using the same SessionDocumentFormat.
+ */
+public class Codecs {
+
+    // decoding does not depend on the format, so this can be shared
+    private static final SessionInfoCodec SESSION_INFO_DECODER = new SessionInfoCodec(SessionDocumentFormat.DEFAULT);
+
+    public static CodecRegistry createRegistry(SessionDocumentFormat format) {
+        return CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(new SessionInfoCodec(format), new SessionInfoWithLastUpdatedCodec(format),
+                        new KeyValueInfoWithLastUpdatedCodec(), new JWTSigningKeyInfoCodec()),
+                MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    // used for sessions that are kept in the SessionCache as raw bytes
+    public static SessionInfo decodeSessionInfo(RawBsonDocument document) {
+        return document.decode(SESSION_INFO_DECODER);
+    }
+}
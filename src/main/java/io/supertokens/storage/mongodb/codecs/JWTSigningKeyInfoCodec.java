@@ -0,0 +1,86 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.codecs;
+
+import io.supertokens.pluginInterface.jwt.JWTAsymmetricSigningKeyInfo;
+import io.supertokens.pluginInterface.jwt.JWTSigningKeyInfo;
+import io.supertokens.pluginInterface.jwt.JWTSymmetricSigningKeyInfo;
+import org.bson.BsonReader;
+import org.bson.BsonSerializationException;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+public class JWTSigningKeyInfoCodec implements Codec<JWTSigningKeyInfo> {
+
+    @Override
+    public JWTSigningKeyInfo decode(BsonReader reader, DecoderContext decoderContext) {
+        String keyId = null;
+        String keyString = null;
+        long createdAt = 0;
+        String algorithm = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            switch (name) {
+                case "_id":
+                    keyId = reader.readString();
+                    break;
+                case "key_string":
+                    keyString = reader.readString();
+                    break;
+                case "created_at":
+                    createdAt = BsonReaders.readLong(reader);
+                    break;
+                case "algorithm":
+                    algorithm = reader.readString();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        if (keyId == null || keyString == null || algorithm == null) {
+            throw new BsonSerializationException("JWT signing key " + keyId + " is missing one of _id, key_string or "
+                    + "algorithm");
+        }
+        if (keyString.contains("|") || keyString.contains(";")) {
+            return new JWTAsymmetricSigningKeyInfo(keyId, createdAt, algorithm, keyString);
+        } else {
+            return new JWTSymmetricSigningKeyInfo(keyId, createdAt, algorithm, keyString);
+        }
+    }
+
+    @Override
+    public void encode(BsonWriter writer, JWTSigningKeyInfo value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeString("_id", value.keyId);
+        writer.writeString("key_string", value.keyString);
+        writer.writeInt64("created_at", value.createdAtTime);
+        writer.writeString("algorithm", value.algorithm);
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<JWTSigningKeyInfo> getEncoderClass() {
+        return JWTSigningKeyInfo.class;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.codecs;
+
+import io.supertokens.pluginInterface.KeyValueInfoWithLastUpdated;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+// only for key values that hold a single value. The ones that hold a list of keys are still read as Documents.
+// The key itself is the _id of the document, which KeyValueInfoWithLastUpdated does not have, so this only writes the
+// other fields. It is used for the $set of writes, and for inserts together with the _id.
+public class KeyValueInfoWithLastUpdatedCodec implements Codec<KeyValueInfoWithLastUpdated> {
+
+    @Override
+    public KeyValueInfoWithLastUpdated decode(BsonReader reader, DecoderContext decoderContext) {
+        String value = null;
+        long createdAtTime = 0;
+        String lastUpdatedSign = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            switch (name) {
+                case "value":
+                    value = reader.readString();
+                    break;
+                case "created_at_time":
+                    createdAtTime = BsonReaders.readLong(reader);
+                    break;
+                case "last_updated_sign":
+                    lastUpdatedSign = reader.readString();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return new KeyValueInfoWithLastUpdated(value, createdAtTime, lastUpdatedSign);
+    }
+
+    @Override
+    public void encode(BsonWriter writer, KeyValueInfoWithLastUpdated value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeString("value", value.value);
+        writer.writeInt64("created_at_time", value.createdAtTime);
+        if (value.lastUpdatedSign != null) {
+            writer.writeString("last_updated_sign", value.lastUpdatedSign);
+        }
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<KeyValueInfoWithLastUpdated> getEncoderClass() {
+        return KeyValueInfoWithLastUpdated.class;
+    }
+}
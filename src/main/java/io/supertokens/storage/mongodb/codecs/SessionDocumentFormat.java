@@ -0,0 +1,76 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+package io.supertokens.storage.mongodb.codecs;
+
+import com.google.gson.JsonObject;
+import io.supertokens.storage.mongodb.config.MongoDBConfig;
+import io.supertokens.storage.mongodb.utils.CompactEncoding;
+import io.supertokens.storage.mongodb.utils.JsonDocumentConverter;
+import org.bson.Document;
+
+/*
+ * How session fields are written, which depends on the config. Reads do not need this, since they accept every format
+ * that has ever been written (see BsonReaders).
+ */
+public class SessionDocumentFormat {
+
+    // the format used when none of the related configs are enabled
+    static final SessionDocumentFormat DEFAULT = new SessionDocumentFormat(false, false, false);
+
+    private final boolean storePayloadsAsDocuments;
+    private final boolean useCompactEncoding;
+    private final boolean useTTLExpiry;
+
+    public SessionDocumentFormat(boolean storePayloadsAsDocuments, boolean useCompactEncoding, boolean useTTLExpiry) {
+        this.storePayloadsAsDocuments = storePayloadsAsDocuments;
+        this.useCompactEncoding = useCompactEncoding;
+        this.useTTLExpiry = useTTLExpiry;
+    }
+
+    public static SessionDocumentFormat fromConfig(MongoDBConfig config) {
+        return new SessionDocumentFormat(config.storeSessionPayloadsAsDocuments(),
+                config.useCompactSessionEncoding(), config.useTTLIndexForSessionExpiry());
+    }
+
+    // session_data and jwt_user_payload are stored as strings by default. If
+    // mongodb_store_session_payloads_as_documents is enabled, they are stored as sub documents instead, unless they
+    // contain something that cannot be represented as is in BSON.
+    public Object toStoredPayload(JsonObject payload) {
+        if (storePayloadsAsDocuments) {
+            Document document = JsonDocumentConverter.toDocument(payload);
+            if (document != null) {
+                return document;
+            }
+        }
+        return payload.toString();
+    }
+
+    // refresh_token_hash_2 and last_updated_sign of sessions are stored as strings by default. If
+    // mongodb_use_compact_session_encoding is enabled, they are stored as BSON binary instead.
+    public Object toStoredHash(String refreshTokenHash2) {
+        return useCompactEncoding ? CompactEncoding.encodeHex(refreshTokenHash2) : refreshTokenHash2;
+    }
+
+    public Object toStoredSessionSign(String lastUpdatedSign) {
+        return useCompactEncoding ? CompactEncoding.encodeUUID(lastUpdatedSign) : lastUpdatedSign;
+    }
+
+    // whether sessions get an expires_at_date field for the TTL index
+    public boolean useTTLExpiry() {
+        return useTTLExpiry;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.codecs;
+
+import com.google.gson.JsonObject;
+import io.supertokens.pluginInterface.session.SessionInfo;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.EncoderContext;
+
+import javax.annotation.Nullable;
+
+/*
+ * The fields of a session document, as read and written by SessionInfoCodec and SessionInfoWithLastUpdatedCodec.
+ * Fields that neither of them need (like expires_at_date) are skipped without being decoded.
+ */
+class SessionFields {
+    String sessionHandle;
+    String userId;
+    String refreshTokenHash2;
+    JsonObject sessionData;
+    long expiry;
+    JsonObject userDataInJWT;
+    long createdAtTime;
+    boolean useStaticKey = false;
+    String lastUpdatedSign;
+
+    static SessionFields read(BsonReader reader) {
+        SessionFields fields = new SessionFields();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            switch (name) {
+                case "_id":
+                    fields.sessionHandle = reader.readString();
+                    break;
+                case "user_id":
+                    fields.userId = reader.readString();
+                    break;
+                case "refresh_token_hash_2":
+                    fields.refreshTokenHash2 = BsonReaders.readHex(reader);
+                    break;
+                case "session_data":
+                    fields.sessionData = BsonReaders.readPayload(reader);
+                    break;
+                case "expires_at":
+                    fields.expiry = BsonReaders.readLong(reader);
+                    break;
+                case "jwt_user_payload":
+                    fields.userDataInJWT = BsonReaders.readPayload(reader);
+                    break;
+                case "created_at_time":
+                    fields.createdAtTime = BsonReaders.readLong(reader);
+                    break;
+                case "use_static_key":
+                    // sessions created by older versions do not have this field, or have it as null
+                    if (reader.getCurrentBsonType() == BsonType.BOOLEAN) {
+                        fields.useStaticKey = reader.readBoolean();
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                case "last_updated_sign":
+                    fields.lastUpdatedSign = BsonReaders.readUUID(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return fields;
+    }
+
+    // lastUpdatedSign is null for a plain SessionInfo, which does not have one
+    static void write(BsonWriter writer, SessionInfo value, @Nullable String lastUpdatedSign,
+                      SessionDocumentFormat format, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeString("_id", value.sessionHandle);
+        writer.writeString("user_id", value.userId);
+        BsonWriters.writeStored(writer, "refresh_token_hash_2", format.toStoredHash(value.refreshTokenHash2),
+                encoderContext);
+        BsonWriters.writeStored(writer, "session_data", format.toStoredPayload(value.userDataInDatabase),
+                encoderContext);
+        writer.writeInt64("expires_at", value.expiry);
+        BsonWriters.writeStored(writer, "jwt_user_payload", format.toStoredPayload(value.userDataInJWT),
+                encoderContext);
+        writer.writeInt64("created_at_time", value.timeCreated);
+        if (lastUpdatedSign != null) {
+            BsonWriters.writeStored(writer, "last_updated_sign", format.toStoredSessionSign(lastUpdatedSign),
+                    encoderContext);
+        }
+        writer.writeBoolean("use_static_key", value.useStaticKey);
+        if (format.useTTLExpiry()) {
+            writer.writeDateTime("expires_at_date", value.expiry);
+        }
+        writer.writeEndDocument();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.codecs;
+
+import io.supertokens.pluginInterface.session.SessionInfo;
+import io.supertokens.pluginInterface.session.noSqlStorage.SessionInfoWithLastUpdated;
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+public class SessionInfoCodec implements Codec<SessionInfo> {
+
+    private final SessionDocumentFormat format;
+
+    SessionInfoCodec(SessionDocumentFormat format) {
+        this.format = format;
+    }
+
+    @Override
+    public SessionInfo decode(BsonReader reader, DecoderContext decoderContext) {
+        SessionFields fields = SessionFields.read(reader);
+        return new SessionInfo(fields.sessionHandle, fields.userId, fields.userId, fields.refreshTokenHash2,
+                fields.sessionData, fields.expiry, fields.userDataInJWT, fields.createdAtTime, fields.useStaticKey);
+    }
+
+    @Override
+    public void encode(BsonWriter writer, SessionInfo value, EncoderContext encoderContext) {
+        // a SessionInfoWithLastUpdated that is written as a SessionInfo still keeps its sign
+        String lastUpdatedSign = value instanceof SessionInfoWithLastUpdated
+                ? ((SessionInfoWithLastUpdated) value).lastUpdatedSign : null;
+        SessionFields.write(writer, value, lastUpdatedSign, format, encoderContext);
+    }
+
+    @Override
+    public Class<SessionInfo> getEncoderClass() {
+        return SessionInfo.class;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.codecs;
+
+import io.supertokens.pluginInterface.session.noSqlStorage.SessionInfoWithLastUpdated;
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+public class SessionInfoWithLastUpdatedCodec implements Codec<SessionInfoWithLastUpdated> {
+
+    private final SessionDocumentFormat format;
+
+    SessionInfoWithLastUpdatedCodec(SessionDocumentFormat format) {
+        this.format = format;
+    }
+
+    @Override
+    public SessionInfoWithLastUpdated decode(BsonReader reader, DecoderContext decoderContext) {
+        SessionFields fields = SessionFields.read(reader);
+        return new SessionInfoWithLastUpdated(fields.sessionHandle, fields.userId, fields.refreshTokenHash2,
+                fields.sessionData, fields.expiry, fields.userDataInJWT, fields.createdAtTime, fields.useStaticKey,
+                fields.lastUpdatedSign);
+    }
+
+    @Override
+    public void encode(BsonWriter writer, SessionInfoWithLastUpdated value, EncoderContext encoderContext) {
+        SessionFields.write(writer, value, value.lastUpdatedSign, format, encoderContext);
+    }
+
+    @Override
+    public Class<SessionInfoWithLastUpdated> getEncoderClass() {
+        return SessionInfoWithLastUpdated.class;
+    }
+}
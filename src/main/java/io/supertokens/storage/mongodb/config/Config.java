@@ -32,7 +32,10 @@ import java.util.Set;
 
 public class Config extends ResourceDistributor.SingletonResource {
 
-    private static final String RESOURCE_KEY = "io.supertokens.storage.mongodb.config.Config";
+    private static final ResourceDistributor.ResourceKey<Config> RESOURCE_KEY =
+            new ResourceDistributor.ResourceKey<>(Config.class);
+    // ObjectMapper is thread safe once configured, and expensive to create, so all configs are read using this one.
+    private static final ObjectMapper YAML_MAPPER = new ObjectMapper(new YAMLFactory());
     private final MongoDBConfig config;
     private final Start start;
     private Set<LOG_LEVEL> logLevels;
@@ -48,7 +51,7 @@ public class Config extends ResourceDistributor.SingletonResource {
     }
 
     private static Config getInstance(Start start) {
-        return (Config) start.getResourceDistributor().getResource(RESOURCE_KEY);
+        return start.getResourceDistributor().getResource(RESOURCE_KEY);
     }
 
     public static void loadConfig(Start start, JsonObject configJson, Set<LOG_LEVEL> logLevels,
@@ -66,10 +69,11 @@ public class Config extends ResourceDistributor.SingletonResource {
     }
 
     public static MongoDBConfig getConfig(Start start) {
-        if (getInstance(start) == null) {
+        Config instance = getInstance(start);
+        if (instance == null) {
             throw new RuntimeException("Please call loadConfig() before calling getConfig()");
         }
-        return getInstance(start).config;
+        return instance.config;
     }
 
     public static void setLogLevels(Start start, Set<LOG_LEVEL> logLevels) {
@@ -77,8 +81,7 @@ public class Config extends ResourceDistributor.SingletonResource {
     }
 
     private MongoDBConfig loadMongoDBConfig(JsonObject configJson) throws IOException, InvalidConfigException {
-        final ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-        MongoDBConfig config = mapper.readValue(configJson.toString(), MongoDBConfig.class);
+        MongoDBConfig config = YAML_MAPPER.readValue(configJson.toString(), MongoDBConfig.class);
 
         config.validateAndInitialise();
         return config;
@@ -86,8 +89,7 @@ public class Config extends ResourceDistributor.SingletonResource {
 
     public static boolean canBeUsed(JsonObject configJson) {
         try {
-            final ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-            MongoDBConfig config = mapper.readValue(configJson.toString(), MongoDBConfig.class);
+            MongoDBConfig config = YAML_MAPPER.readValue(configJson.toString(), MongoDBConfig.class);
             return config.getConnectionURI() != null;
         } catch (Exception e) {
             return false;
@@ -22,14 +22,19 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.mongodb.ReadPreference;
+import com.mongodb.TagSet;
 import io.supertokens.pluginInterface.LOG_LEVEL;
 import io.supertokens.pluginInterface.exceptions.DbInitException;
 import io.supertokens.pluginInterface.exceptions.InvalidConfigException;
 
+import javax.annotation.Nullable;
 import java.net.URI;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class MongoDBConfig {
@@ -52,6 +57,109 @@ public class MongoDBConfig {
     @JsonProperty
     private String mongodb_collection_names_prefix = "";
 
+    @JsonProperty
+    private boolean mongodb_auto_create_indexes = true;
+
+    @JsonProperty
+    private boolean mongodb_use_ttl_index_for_session_expiry = false;
+
+    @JsonProperty
+    private int mongodb_expired_sessions_cleanup_chunk_size = 1000;
+
+    @JsonProperty
+    private boolean mongodb_store_session_payloads_as_documents = false;
+
+    @JsonProperty
+    private int mongodb_session_cache_size = 0;
+
+    @JsonProperty
+    private long mongodb_session_cache_ttl_ms = 5000;
+
+    @JsonProperty
+    private long mongodb_session_update_coalescing_window_ms = 0;
+
+    @JsonProperty
+    private int mongodb_session_create_batch_size = 1;
+
+    @JsonProperty
+    private long mongodb_session_create_linger_ms = 5;
+
+    @JsonProperty
+    private int mongodb_async_storage_thread_pool_size = 10;
+
+    @JsonProperty
+    private boolean mongodb_async_storage_use_virtual_threads = false;
+
+    @JsonProperty
+    private boolean mongodb_use_estimated_session_count = false;
+
+    @JsonProperty
+    private boolean mongodb_use_session_counters = false;
+
+    @JsonProperty
+    private boolean mongodb_use_compact_session_encoding = false;
+
+    @JsonProperty
+    private String mongodb_last_updated_sign_generator = "uuid";
+
+    // the connection pool and socket settings below are left to the connection URI (or the driver's defaults) if
+    // they are not set.
+    @JsonProperty
+    private Integer mongodb_connection_pool_size = null;
+
+    @JsonProperty
+    private Integer mongodb_minimum_idle_connections = null;
+
+    @JsonProperty
+    private Long mongodb_idle_connection_timeout_ms = null;
+
+    @JsonProperty
+    private Long mongodb_connection_pool_wait_timeout_ms = null;
+
+    @JsonProperty
+    private Long mongodb_connect_timeout_ms = null;
+
+    @JsonProperty
+    private Long mongodb_socket_read_timeout_ms = null;
+
+    @JsonProperty
+    private int mongodb_warm_up_connections = 0;
+
+    @JsonProperty
+    private long mongodb_init_timeout_ms = 3600 * 1000;
+
+    @JsonProperty
+    private long mongodb_init_retry_initial_interval_ms = 100;
+
+    @JsonProperty
+    private long mongodb_init_retry_max_interval_ms = 10 * 1000;
+
+    @JsonProperty
+    private boolean mongodb_initialise_in_background = false;
+
+    @JsonProperty
+    private long mongodb_background_initialisation_wait_timeout_ms = 5000;
+
+    @JsonProperty
+    private String mongodb_stale_reads_read_preference = "primary";
+
+    @JsonProperty
+    private Long mongodb_stale_reads_max_staleness_seconds = null;
+
+    // the below are derived from the fields above in validateAndInitialise, so that the getters do not need to parse
+    // mongodb_connection_uri again on every call. They are transient, so that they are not valid config fields.
+    private transient String connectionScheme;
+    private transient String connectionAttributes;
+    private transient String hostName;
+    private transient int port;
+    private transient String user;
+    private transient String password;
+    private transient String databaseName;
+    private transient String keyValueCollection;
+    private transient String sessionInfoCollection;
+    private transient String jwtSigningKeysCollection;
+    private transient ReadPreference staleReadsReadPreference;
+
     public static Set<String> getValidFields() {
         MongoDBConfig config = new MongoDBConfig();
         JsonObject configObj = new GsonBuilder().serializeNulls().create().toJsonTree(config).getAsJsonObject();
@@ -68,76 +176,31 @@ public class MongoDBConfig {
     }
 
     public String getConnectionScheme() {
-        URI uri = URI.create(mongodb_connection_uri);
-
-        // sometimes if the scheme is missing, the host is returned as the scheme. To prevent that,
-        // we have a check
-        String host = this.getHostName();
-        if (uri.getScheme() != null && !uri.getScheme().equals(host)) {
-            return uri.getScheme();
-        }
-        return "mongodb";
+        return connectionScheme;
     }
 
     public String getConnectionAttributes() {
-        URI uri = URI.create(mongodb_connection_uri);
-        String query = uri.getQuery();
-        if (query != null) {
-            return query;
-        }
-        return "";
+        return connectionAttributes;
     }
 
     public String getHostName() {
-        URI uri = URI.create(mongodb_connection_uri);
-        if (uri.getHost() != null) {
-            return uri.getHost();
-        }
-        return "localhost";
+        return hostName;
     }
 
     public int getPort() {
-        URI uri = URI.create(mongodb_connection_uri);
-        return uri.getPort();
+        return port;
     }
 
     public String getUser() {
-        URI uri = URI.create(mongodb_connection_uri);
-        String userInfo = uri.getUserInfo();
-        if (userInfo != null) {
-            String[] userInfoArray = userInfo.split(":");
-            if (userInfoArray.length > 0 && !userInfoArray[0].equals("")) {
-                return userInfoArray[0];
-            }
-        }
-        return null;
+        return user;
     }
 
     public String getPassword() {
-        URI uri = URI.create(mongodb_connection_uri);
-        String userInfo = uri.getUserInfo();
-        if (userInfo != null) {
-            String[] userInfoArray = userInfo.split(":");
-            if (userInfoArray.length > 1 && !userInfoArray[1].equals("")) {
-                return userInfoArray[1];
-            }
-        }
-        return null;
+        return password;
     }
 
     public String getDatabaseName() {
-        if (mongodb_database_name == null) {
-            URI uri = URI.create(mongodb_connection_uri);
-            String path = uri.getPath();
-            if (path != null && !path.equals("") && !path.equals("/")) {
-                if (path.startsWith("/")) {
-                    return path.substring(1);
-                }
-                return path;
-            }
-            return "supertokens";
-        }
-        return mongodb_database_name;
+        return databaseName;
     }
 
     public String getConnectionURI() {
@@ -145,23 +208,136 @@ public class MongoDBConfig {
     }
 
     public String getKeyValueCollection() {
-        String tableName = "key_value";
-        if (mongodb_key_value_collection_name != null) {
-            return mongodb_key_value_collection_name;
-        }
-        return addPrefixToTableName(tableName);
+        return keyValueCollection;
     }
 
     public String getSessionInfoCollection() {
-        String tableName = "session_info";
-        if (mongodb_session_info_collection_name != null) {
-            return mongodb_session_info_collection_name;
-        }
-        return addPrefixToTableName(tableName);
+        return sessionInfoCollection;
     }
 
     public String getJWTSigningKeysCollection() {
-        return addPrefixToTableName("jwt_signing_keys");
+        return jwtSigningKeysCollection;
+    }
+
+    public boolean shouldAutoCreateIndexes() {
+        return mongodb_auto_create_indexes;
+    }
+
+    public boolean useTTLIndexForSessionExpiry() {
+        return mongodb_use_ttl_index_for_session_expiry;
+    }
+
+    public int getExpiredSessionsCleanupChunkSize() {
+        return mongodb_expired_sessions_cleanup_chunk_size;
+    }
+
+    public boolean storeSessionPayloadsAsDocuments() {
+        return mongodb_store_session_payloads_as_documents;
+    }
+
+    public int getSessionCacheSize() {
+        return mongodb_session_cache_size;
+    }
+
+    public long getSessionCacheTTL() {
+        return mongodb_session_cache_ttl_ms;
+    }
+
+    public long getSessionUpdateCoalescingWindow() {
+        return mongodb_session_update_coalescing_window_ms;
+    }
+
+    public int getSessionCreateBatchSize() {
+        return mongodb_session_create_batch_size;
+    }
+
+    public long getSessionCreateLingerMs() {
+        return mongodb_session_create_linger_ms;
+    }
+
+    public int getAsyncStorageThreadPoolSize() {
+        return mongodb_async_storage_thread_pool_size;
+    }
+
+    public boolean useVirtualThreadsForAsyncStorage() {
+        return mongodb_async_storage_use_virtual_threads;
+    }
+
+    public boolean useEstimatedSessionCount() {
+        return mongodb_use_estimated_session_count;
+    }
+
+    public boolean useSessionCounters() {
+        return mongodb_use_session_counters;
+    }
+
+    public boolean useCompactSessionEncoding() {
+        return mongodb_use_compact_session_encoding;
+    }
+
+    public String getLastUpdatedSignGenerator() {
+        return mongodb_last_updated_sign_generator;
+    }
+
+    @Nullable
+    public Integer getConnectionPoolSize() {
+        return mongodb_connection_pool_size;
+    }
+
+    @Nullable
+    public Integer getMinimumIdleConnections() {
+        return mongodb_minimum_idle_connections;
+    }
+
+    @Nullable
+    public Long getIdleConnectionTimeout() {
+        return mongodb_idle_connection_timeout_ms;
+    }
+
+    @Nullable
+    public Long getConnectionPoolWaitTimeout() {
+        return mongodb_connection_pool_wait_timeout_ms;
+    }
+
+    @Nullable
+    public Long getConnectTimeout() {
+        return mongodb_connect_timeout_ms;
+    }
+
+    @Nullable
+    public Long getSocketReadTimeout() {
+        return mongodb_socket_read_timeout_ms;
+    }
+
+    public int getWarmUpConnections() {
+        return mongodb_warm_up_connections;
+    }
+
+    public long getInitTimeout() {
+        return mongodb_init_timeout_ms;
+    }
+
+    public long getInitRetryInitialInterval() {
+        return mongodb_init_retry_initial_interval_ms;
+    }
+
+    public long getInitRetryMaxInterval() {
+        return mongodb_init_retry_max_interval_ms;
+    }
+
+    public boolean initialiseInBackground() {
+        return mongodb_initialise_in_background;
+    }
+
+    public long getBackgroundInitialisationWaitTimeout() {
+        return mongodb_background_initialisation_wait_timeout_ms;
+    }
+
+    // used by the reads that are fine with slightly stale data. The reads that compare and set use
+    // ReadPreference.primary() explicitly (see CollectionRegistry), even if the connection URI sets a different read
+    // preference, and getSession uses the read preference of the connection URI.
+    public ReadPreference getStaleReadsReadPreference() {
+        return staleReadsReadPreference;
     }
 
     private String addPrefixToTableName(String tableName) {
@@ -171,6 +347,41 @@ public class MongoDBConfig {
         return tableName;
     }
 
+    private void initialiseConnectionParts(URI uri) {
+        hostName = uri.getHost() != null ? uri.getHost() : "localhost";
+
+        // sometimes if the scheme is missing, the host is returned as the scheme. To prevent that,
+        // we have a check
+        connectionScheme = uri.getScheme() != null && !uri.getScheme().equals(hostName) ? uri.getScheme() : "mongodb";
+
+        connectionAttributes = uri.getQuery() != null ? uri.getQuery() : "";
+
+        port = uri.getPort();
+
+        user = null;
+        password = null;
+        String userInfo = uri.getUserInfo();
+        if (userInfo != null) {
+            String[] userInfoArray = userInfo.split(":");
+            if (userInfoArray.length > 0 && !userInfoArray[0].equals("")) {
+                user = userInfoArray[0];
+            }
+            if (userInfoArray.length > 1 && !userInfoArray[1].equals("")) {
+                password = userInfoArray[1];
+            }
+        }
+
+        if (mongodb_database_name != null) {
+            databaseName = mongodb_database_name;
+        } else {
+            databaseName = "supertokens";
+            String path = uri.getPath();
+            if (path != null && !path.equals("") && !path.equals("/")) {
+                databaseName = path.startsWith("/") ? path.substring(1) : path;
+            }
+        }
+    }
+
     void validateAndInitialise() throws InvalidConfigException {
 
         if (mongodb_connection_uri == null) {
@@ -179,12 +390,138 @@ public class MongoDBConfig {
                             + "SuperTokens");
         }
 
+        URI uri;
         try {
-            URI ignored = URI.create(mongodb_connection_uri);
+            uri = URI.create(mongodb_connection_uri);
         } catch (Exception e) {
             throw new InvalidConfigException(
                     "The provided mongodb connection URI has an incorrect format. Please use a format like "
                             + "mongodb+srv://[user[:[password]]@]host[:port][/dbname][?attr1=val1&attr2=val2...");
         }
+        initialiseConnectionParts(uri);
+
+        keyValueCollection = mongodb_key_value_collection_name != null ? mongodb_key_value_collection_name
+                : addPrefixToTableName("key_value");
+        sessionInfoCollection = mongodb_session_info_collection_name != null ? mongodb_session_info_collection_name
+                : addPrefixToTableName("session_info");
+        jwtSigningKeysCollection = addPrefixToTableName("jwt_signing_keys");
+
+        if (mongodb_expired_sessions_cleanup_chunk_size <= 0) {
+            throw new InvalidConfigException(
+                    "'mongodb_expired_sessions_cleanup_chunk_size' must be a positive integer");
+        }
+
+        if (mongodb_session_cache_size < 0) {
+            throw new InvalidConfigException("'mongodb_session_cache_size' must be >= 0");
+        }
+
+        if (mongodb_session_cache_ttl_ms <= 0) {
+            throw new InvalidConfigException("'mongodb_session_cache_ttl_ms' must be a positive integer");
+        }
+
+        if (mongodb_session_update_coalescing_window_ms < 0) {
+            throw new InvalidConfigException("'mongodb_session_update_coalescing_window_ms' must be >= 0");
+        }
+
+        if (mongodb_session_create_batch_size <= 0) {
+            throw new InvalidConfigException("'mongodb_session_create_batch_size' must be a positive integer");
+        }
+
+        if (mongodb_session_create_linger_ms < 0) {
+            throw new InvalidConfigException("'mongodb_session_create_linger_ms' must be >= 0");
+        }
+
+        if (mongodb_async_storage_thread_pool_size <= 0) {
+            throw new InvalidConfigException("'mongodb_async_storage_thread_pool_size' must be a positive integer");
+        }
+
+        if (!"uuid".equals(mongodb_last_updated_sign_generator)
+                && !"counter".equals(mongodb_last_updated_sign_generator)) {
+            throw new InvalidConfigException(
+                    "'mongodb_last_updated_sign_generator' must be either 'uuid' or 'counter'");
+        }
+
+        if (mongodb_connection_pool_size != null && mongodb_connection_pool_size <= 0) {
+            throw new InvalidConfigException("'mongodb_connection_pool_size' must be a positive integer");
+        }
+
+        if (mongodb_minimum_idle_connections != null) {
+            if (mongodb_minimum_idle_connections < 0) {
+                throw new InvalidConfigException("'mongodb_minimum_idle_connections' must be >= 0");
+            }
+            if (mongodb_connection_pool_size != null
+                    && mongodb_minimum_idle_connections > mongodb_connection_pool_size) {
+                throw new InvalidConfigException(
+                        "'mongodb_minimum_idle_connections' must not be more than 'mongodb_connection_pool_size'");
+            }
+        }
+
+        if (mongodb_idle_connection_timeout_ms != null && mongodb_idle_connection_timeout_ms < 0) {
+            throw new InvalidConfigException("'mongodb_idle_connection_timeout_ms' must be >= 0");
+        }
+
+        if (mongodb_connection_pool_wait_timeout_ms != null && mongodb_connection_pool_wait_timeout_ms < 0) {
+            throw new InvalidConfigException("'mongodb_connection_pool_wait_timeout_ms' must be >= 0");
+        }
+
+        if (mongodb_connect_timeout_ms != null && (mongodb_connect_timeout_ms < 0
+                || mongodb_connect_timeout_ms > Integer.MAX_VALUE)) {
+            throw new InvalidConfigException("'mongodb_connect_timeout_ms' must be between 0 and 2147483647");
+        }
+
+        if (mongodb_socket_read_timeout_ms != null && (mongodb_socket_read_timeout_ms < 0
+                || mongodb_socket_read_timeout_ms > Integer.MAX_VALUE)) {
+            throw new InvalidConfigException("'mongodb_socket_read_timeout_ms' must be between 0 and 2147483647");
+        }
+
+        if (mongodb_warm_up_connections < 0) {
+            throw new InvalidConfigException("'mongodb_warm_up_connections' must be >= 0");
+        }
+
+        if (mongodb_init_timeout_ms < 0) {
+            throw new InvalidConfigException("'mongodb_init_timeout_ms' must be >= 0");
+        }
+
+        if (mongodb_init_retry_initial_interval_ms <= 0) {
+            throw new InvalidConfigException("'mongodb_init_retry_initial_interval_ms' must be a positive number");
+        }
+
+        if (mongodb_init_retry_max_interval_ms < mongodb_init_retry_initial_interval_ms) {
+            throw new InvalidConfigException(
+                    "'mongodb_init_retry_max_interval_ms' must not be less than "
+                            + "'mongodb_init_retry_initial_interval_ms'");
+        }
+
+        if (mongodb_background_initialisation_wait_timeout_ms < 0) {
+            throw new InvalidConfigException("'mongodb_background_initialisation_wait_timeout_ms' must be >= 0");
+        }
+
+        staleReadsReadPreference = parseStaleReadsReadPreference();
+    }
+
+    private ReadPreference parseStaleReadsReadPreference() throws InvalidConfigException {
+        if (mongodb_stale_reads_max_staleness_seconds == null) {
+            try {
+                return ReadPreference.valueOf(mongodb_stale_reads_read_preference);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidConfigException("'mongodb_stale_reads_read_preference' must be one of 'primary', "
+                        + "'primaryPreferred', 'secondary', 'secondaryPreferred' or 'nearest'");
+            }
+        }
+        if ("primary".equals(mongodb_stale_reads_read_preference)) {
+            throw new InvalidConfigException("'mongodb_stale_reads_max_staleness_seconds' cannot be set if "
+                    + "'mongodb_stale_reads_read_preference' is 'primary'");
+        }
+        // this is the smallest value that MongoDB allows
+        if (mongodb_stale_reads_max_staleness_seconds < 90) {
+            throw new InvalidConfigException("'mongodb_stale_reads_max_staleness_seconds' must be at least 90");
+        }
+        try {
+            return ReadPreference.valueOf(mongodb_stale_reads_read_preference, Collections.<TagSet>emptyList(),
+                    mongodb_stale_reads_max_staleness_seconds, TimeUnit.SECONDS);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidConfigException("'mongodb_stale_reads_read_preference' must be one of 'primary', "
+                    + "'primaryPreferred', 'secondary', 'secondaryPreferred' or 'nearest'");
+        }
     }
 }
\ No newline at end of file
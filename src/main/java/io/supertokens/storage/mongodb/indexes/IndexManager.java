@@ -0,0 +1,250 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.indexes;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import io.supertokens.storage.mongodb.ConnectionPool;
+import io.supertokens.storage.mongodb.Start;
+import io.supertokens.storage.mongodb.config.Config;
+import io.supertokens.storage.mongodb.config.MongoDBConfig;
+import io.supertokens.storage.mongodb.output.Logging;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Declares the indexes that the queries in this plugin rely on, and makes sure that they exist once the connection
+ * pool has been set up.
+ *
+ * The key_value collection is only ever queried by _id, so it does not need anything beyond the default index.
+ *
+ * Indexes are created one at a time with background: true (which is ignored by MongoDB 4.2+, where all builds are
+ * hybrid and only hold exclusive locks at the start and end of the build). Deployments that prefer to do rolling index
+ * builds across their replica set can set mongodb_auto_create_indexes to false - the indexes will then not be created,
+ * but we will still log what is missing or has drifted from what we expect.
+ */
+public class IndexManager {
+
+    private static final String AUTO_CREATE_DISABLED_HINT = "Set 'mongodb_auto_create_indexes' to true, or create "
+            + "this index manually.";
+
+    static List<IndexDefinition> getRequiredIndexes(MongoDBConfig config) {
+        List<IndexDefinition> result = new ArrayList<>();
+
+        // used by getAllNonExpiredSessionHandlesForUser (as a covered query, which is why _id is a part of it) and
+        // by deleteSessionsOfUser (via the user_id prefix)
+        result.add(new IndexDefinition(config.getSessionInfoCollection(),
+                new Document("user_id", 1).append("expires_at", 1).append("_id", 1), false));
+
+        // used by deleteAllExpiredSessions
+        result.add(new IndexDefinition(config.getSessionInfoCollection(), new Document("expires_at", 1), false));
+
+        if (config.useTTLIndexForSessionExpiry()) {
+            // lets MongoDB's TTL monitor delete expired sessions instead of deleteAllExpiredSessions
+            result.add(new IndexDefinition(config.getSessionInfoCollection(), new Document("expires_at_date", 1),
+                    false, 0L));
+        }
+
+        // used by setJWTSigningKeyInfoIfNoKeyForAlgorithmExists_Transaction. This is intentionally not unique since
+        // the access_token_signing_key_list migration (see CHANGELOG for 1.23.0) inserts multiple keys per algorithm.
+        result.add(new IndexDefinition(config.getJWTSigningKeysCollection(), new Document("algorithm", 1), false));
+
+        // used by the sorted read in getJWTSigningKeys_Transaction
+        result.add(new IndexDefinition(config.getJWTSigningKeysCollection(), new Document("created_at", -1), false));
+
+        return result;
+    }
+
+    public static void createIndexesIfNeeded(Start start) {
+        MongoDBConfig config = Config.getConfig(start);
+        try {
+            MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
+            for (IndexDefinition index : getRequiredIndexes(config)) {
+                MongoCollection<Document> collection = client.getCollection(index.collectionName);
+                ensureIndex(start, collection, index, config.shouldAutoCreateIndexes());
+            }
+            if (!config.useTTLIndexForSessionExpiry()) {
+                warnIfTTLIndexIsStillPresent(start, client.getCollection(config.getSessionInfoCollection()));
+            }
+        } catch (MongoException e) {
+            // missing indexes only make queries slower, so we do not want to fail startup because of this.
+            Logging.error(start, "Failed to verify MongoDB indexes", false, e);
+        }
+    }
+
+    // reads one entry through each of the required indexes, so that the first queries after startup do not have to
+    // load them from disk. This never fails - an index that does not exist is simply skipped.
+    public static void touchIndexes(Start start, MongoDatabase database) {
+        for (IndexDefinition index : getRequiredIndexes(Config.getConfig(start))) {
+            try {
+                database.getCollection(index.collectionName).find().hint(index.keys).limit(1).first();
+            } catch (MongoException e) {
+                Logging.debug(start, "Could not warm up index " + index.describe() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void ensureIndex(Start start, MongoCollection<Document> collection, IndexDefinition index,
+                                    boolean autoCreate) {
+        List<Document> existingIndexes = new ArrayList<>();
+        try (MongoCursor<Document> cursor = collection.listIndexes().iterator()) {
+            while (cursor.hasNext()) {
+                existingIndexes.add(cursor.next());
+            }
+        }
+
+        for (Document existing : existingIndexes) {
+            if (index.name.equals(existing.getString("name"))) {
+                if (!index.matches(existing)) {
+                    Logging.warn(start, "Index " + index.describe() + " has drifted from what is expected. Found: "
+                            + existing.toJson() + ". Please drop it so that it can be recreated.");
+                }
+                return;
+            }
+            if (index.hasSameKey(existing)) {
+                if (!index.matches(existing)) {
+                    Logging.warn(start, "Index " + index.describe() + " exists as '" + existing.getString("name")
+                            + "' but with different options: " + existing.toJson());
+                }
+                return;
+            }
+        }
+
+        if (!autoCreate) {
+            Logging.warn(start, "Missing index " + index.describe() + ". " + AUTO_CREATE_DISABLED_HINT);
+            return;
+        }
+
+        Logging.info(start, "Creating index " + index.describe(), true);
+        try {
+            collection.createIndex(index.keys, index.toIndexOptions());
+        } catch (MongoException e) {
+            Logging.error(start, "Failed to create index " + index.describe(), false, e);
+        }
+    }
+
+    // If the TTL expiry mode is switched off, refreshing a session removes its expires_at_date, so a leftover TTL
+    // index can no longer delete sessions that are still alive. It is not used for anything else though, so we ask
+    // for it to be dropped.
+    private static void warnIfTTLIndexIsStillPresent(Start start, MongoCollection<Document> collection) {
+        try (MongoCursor<Document> cursor = collection.listIndexes().iterator()) {
+            while (cursor.hasNext()) {
+                Document existing = cursor.next();
+                Document keys = existing.get("key", Document.class);
+                if (keys != null && keys.containsKey("expires_at_date")) {
+                    Logging.warn(start, "Found index '" + existing.getString("name") + "' on collection '"
+                            + collection.getNamespace().getCollectionName() + "' even though "
+                            + "'mongodb_use_ttl_index_for_session_expiry' is false. Please drop this index, "
+                            + "since it is no longer used.");
+                }
+            }
+        }
+    }
+
+    static class IndexDefinition {
+        final String collectionName;
+        final Document keys;
+        final boolean unique;
+        final Long expireAfterSeconds;
+        final String name;
+
+        IndexDefinition(String collectionName, Document keys, boolean unique) {
+            this(collectionName, keys, unique, null);
+        }
+
+        IndexDefinition(String collectionName, Document keys, boolean unique, Long expireAfterSeconds) {
+            this.collectionName = collectionName;
+            this.keys = keys;
+            this.unique = unique;
+            this.expireAfterSeconds = expireAfterSeconds;
+            this.name = generateName(keys);
+        }
+
+        // this is the same naming scheme that MongoDB uses by default, so that indexes created manually from the
+        // shell are recognised as well.
+        private static String generateName(Document keys) {
+            StringBuilder name = new StringBuilder();
+            for (Map.Entry<String, Object> entry : keys.entrySet()) {
+                if (name.length() > 0) {
+                    name.append("_");
+                }
+                name.append(entry.getKey()).append("_").append(entry.getValue());
+            }
+            return name.toString();
+        }
+
+        IndexOptions toIndexOptions() {
+            IndexOptions options = new IndexOptions().name(name).unique(unique).background(true);
+            if (expireAfterSeconds != null) {
+                options.expireAfter(expireAfterSeconds, TimeUnit.SECONDS);
+            }
+            return options;
+        }
+
+        boolean hasSameKey(Document existing) {
+            Document existingKeys = existing.get("key", Document.class);
+            if (existingKeys == null || existingKeys.size() != keys.size()) {
+                return false;
+            }
+            // the order of fields in a compound index matters, so we compare entry by entry.
+            Iterator<Map.Entry<String, Object>> expected = keys.entrySet().iterator();
+            Iterator<Map.Entry<String, Object>> actual = existingKeys.entrySet().iterator();
+            while (expected.hasNext()) {
+                Map.Entry<String, Object> e = expected.next();
+                Map.Entry<String, Object> a = actual.next();
+                if (!e.getKey().equals(a.getKey())) {
+                    return false;
+                }
+                // indexes created from the legacy mongo shell store the direction as a double
+                if (e.getValue() instanceof Number && a.getValue() instanceof Number) {
+                    if (((Number) e.getValue()).intValue() != ((Number) a.getValue()).intValue()) {
+                        return false;
+                    }
+                } else if (!Objects.equals(e.getValue(), a.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean matches(Document existing) {
+            if (!hasSameKey(existing) || unique != Boolean.TRUE.equals(existing.getBoolean("unique"))) {
+                return false;
+            }
+            Object existingExpiry = existing.get("expireAfterSeconds");
+            if (expireAfterSeconds == null || existingExpiry == null) {
+                return expireAfterSeconds == null && existingExpiry == null;
+            }
+            return existingExpiry instanceof Number
+                    && ((Number) existingExpiry).longValue() == expireAfterSeconds;
+        }
+
+        String describe() {
+            return "'" + name + "' on collection '" + collectionName + "'";
+        }
+    }
+}
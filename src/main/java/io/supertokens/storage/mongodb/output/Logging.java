@@ -31,7 +31,8 @@ import org.slf4j.LoggerFactory;
 
 public class Logging extends ResourceDistributor.SingletonResource {
 
-    private static final String RESOURCE_ID = "io.supertokens.storage.mongodb.output.Logging";
+    private static final ResourceDistributor.ResourceKey<Logging> RESOURCE_ID =
+            new ResourceDistributor.ResourceKey<>(Logging.class);
     private final Logger infoLogger;
     private final Logger errorLogger;
 
@@ -45,14 +46,12 @@ public class Logging extends ResourceDistributor.SingletonResource {
     }
 
     private static Logging getInstance(Start start) {
-        return (Logging) start.getResourceDistributor().getResource(RESOURCE_ID);
+        return start.getResourceDistributor().getResource(RESOURCE_ID);
     }
 
     public static void initFileLogging(Start start, String infoLogPath, String errorLogPath) {
-        if (getInstance(start) == null) {
-            start.getResourceDistributor().setResource(RESOURCE_ID, new Logging(start, infoLogPath, errorLogPath));
-
-        }
+        start.getResourceDistributor()
+                .getOrCreateResource(RESOURCE_ID, () -> new Logging(start, infoLogPath, errorLogPath));
     }
 
     public static void debug(Start start, String msg) {
@@ -18,19 +18,16 @@ package io.supertokens.storage.mongodb.queries;
 
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
-import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.model.ReturnDocument;
 import com.mongodb.client.model.Sorts;
-import io.supertokens.pluginInterface.RowMapper;
 import io.supertokens.pluginInterface.exceptions.StorageQueryException;
-import io.supertokens.pluginInterface.jwt.JWTAsymmetricSigningKeyInfo;
 import io.supertokens.pluginInterface.jwt.JWTSigningKeyInfo;
-import io.supertokens.pluginInterface.jwt.JWTSymmetricSigningKeyInfo;
-import io.supertokens.storage.mongodb.ConnectionPool;
+import io.supertokens.storage.mongodb.CollectionRegistry;
 import io.supertokens.storage.mongodb.Start;
-import io.supertokens.storage.mongodb.config.Config;
+import org.bson.BSONException;
+import org.bson.BsonDocumentWrapper;
 import org.bson.Document;
 
 import java.util.ArrayList;
@@ -38,8 +35,10 @@ import java.util.List;
 
 public class JWTSigningQueries {
     public static List<JWTSigningKeyInfo> getJWTSigningKeys_Transaction(Start start) throws StorageQueryException {
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getJWTSigningKeysCollection());
+        // this must read from the primary: the core adds a key when this returns none for an algorithm, and retries
+        // until it reads back the key that was stored, which a lagging secondary would not return.
+        MongoCollection<JWTSigningKeyInfo> collection = CollectionRegistry.getInstance(start)
+                .getJWTSigningKeysAsKeyInfo();
         List<JWTSigningKeyInfo> result = new ArrayList<>();
 
         /*
@@ -57,50 +56,28 @@ public class JWTSigningQueries {
          * defined
          * keys in the future.
          */
-        try (MongoCursor cursor = collection.find().sort(Sorts.descending("created_at")).iterator()) {
+        try (MongoCursor<JWTSigningKeyInfo> cursor = collection.find().sort(Sorts.descending("created_at"))
+                .iterator()) {
             while (cursor.hasNext()) {
-                Document currentDoc = (Document) cursor.next();
-                result.add(JWTSigningKeyInfoRowMapper.getInstance().mapOrThrow(currentDoc));
+                result.add(cursor.next());
             }
+        } catch (BSONException e) {
+            throw new StorageQueryException(e);
         }
 
         return result;
     }
 
-    private static class JWTSigningKeyInfoRowMapper implements RowMapper<JWTSigningKeyInfo, Document> {
-        private static final JWTSigningKeyInfoRowMapper INSTANCE = new JWTSigningKeyInfoRowMapper();
-
-        private JWTSigningKeyInfoRowMapper() {
-        }
-
-        private static JWTSigningKeyInfoRowMapper getInstance() {
-            return INSTANCE;
-        }
-
-        @Override
-        public JWTSigningKeyInfo map(Document result) throws Exception {
-            String keyId = result.getString("_id");
-            String keyString = result.getString("key_string");
-            long createdAt = result.getLong("created_at");
-            String algorithm = result.getString("algorithm");
-
-            if (keyString.contains("|") || keyString.contains(";")) {
-                return new JWTAsymmetricSigningKeyInfo(keyId, createdAt, algorithm, keyString);
-            } else {
-                return new JWTSymmetricSigningKeyInfo(keyId, createdAt, algorithm, keyString);
-            }
-        }
-    }
-
     public static boolean setJWTSigningKeyInfoIfNoKeyForAlgorithmExists_Transaction(Start start,
                                                                                     JWTSigningKeyInfo keyInfo)
             throws StorageQueryException {
-        MongoDatabase client = ConnectionPool.getClientConnectedToDatabase(start);
-        MongoCollection collection = client.getCollection(Config.getConfig(start).getJWTSigningKeysCollection());
+        MongoCollection<JWTSigningKeyInfo> collection = CollectionRegistry.getInstance(start)
+                .getJWTSigningKeysAsKeyInfo();
 
-        Document toInsertIfNoneFound = new Document("$setOnInsert",
-                new Document("_id", keyInfo.keyId).append("key_string", keyInfo.keyString)
-                        .append("created_at", keyInfo.createdAtTime).append("algorithm", keyInfo.algorithm));
+        // keyInfo is always a subclass of JWTSigningKeyInfo, which the registry would not find a codec for, since it
+        // only matches the exact class. So the codec is passed in directly.
+        Document toInsertIfNoneFound = new Document("$setOnInsert", new BsonDocumentWrapper<>(keyInfo,
+                CollectionRegistry.getInstance(start).getCodecRegistry().get(JWTSigningKeyInfo.class)));
 
         FindOneAndUpdateOptions options = new FindOneAndUpdateOptions();
         options.returnDocument(ReturnDocument.AFTER);
@@ -114,8 +91,13 @@ public class JWTSigningQueries {
          * to determine
          * if the set query succeeded.
          */
-        Document result = (Document) collection.findOneAndUpdate(Filters.eq("algorithm", keyInfo.algorithm),
-                toInsertIfNoneFound, options);
+        JWTSigningKeyInfo result;
+        try {
+            result = collection.findOneAndUpdate(Filters.eq("algorithm", keyInfo.algorithm), toInsertIfNoneFound,
+                    options);
+        } catch (BSONException e) {
+            throw new StorageQueryException(e);
+        }
 
         /*
          * Because we use findOneAndUpdate we cannot solely rely on key id to determine if a document was inserted or
@@ -126,10 +108,10 @@ public class JWTSigningQueries {
          * may be a situation]
          *
          * In this case comparing just key ids would return true when it shouldn't, and the caller will proceed to use a
-         * different key string than the one in storage. To resolve this we will first convert the Document to the key
+         * different key string than the one in storage. To resolve this the codec converts the document to the key
          * class
-         * and do a full equals check instead
+         * and we do a full equals check instead
          */
-        return JWTSigningKeyInfoRowMapper.getInstance().mapOrThrow(result).equals(keyInfo);
+        return result.equals(keyInfo);
     }
 }
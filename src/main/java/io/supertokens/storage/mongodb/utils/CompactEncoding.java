@@ -0,0 +1,100 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.utils;
+
+import org.bson.BsonBinarySubType;
+import org.bson.types.Binary;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/*
+ * Stores UUIDs and lowercase hex strings as BSON binary instead of as strings, which takes less than half the space.
+ *
+ * Values are only encoded if decoding them gives back exactly the same string, so any other value is stored as a
+ * string, and the decode functions accept both forms.
+ */
+public class CompactEncoding {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    public static Object encodeUUID(String value) {
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return value;
+        }
+        // UUID.fromString also accepts non canonical forms like upper case digits, which we could not give back as is
+        if (!uuid.toString().equals(value)) {
+            return value;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+        return new Binary(BsonBinarySubType.UUID_STANDARD, buffer.array());
+    }
+
+    public static String decodeUUID(Object value) {
+        if (value instanceof Binary) {
+            ByteBuffer buffer = ByteBuffer.wrap(((Binary) value).getData());
+            return new UUID(buffer.getLong(), buffer.getLong()).toString();
+        }
+        return (String) value;
+    }
+
+    public static Object encodeHex(String value) {
+        if (value.length() % 2 != 0) {
+            return value;
+        }
+        byte[] bytes = new byte[value.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = hexDigit(value.charAt(2 * i));
+            int low = hexDigit(value.charAt(2 * i + 1));
+            if (high == -1 || low == -1) {
+                return value;
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return new Binary(BsonBinarySubType.BINARY, bytes);
+    }
+
+    public static String decodeHex(Object value) {
+        if (value instanceof Binary) {
+            byte[] bytes = ((Binary) value).getData();
+            char[] chars = new char[bytes.length * 2];
+            for (int i = 0; i < bytes.length; i++) {
+                chars[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+                chars[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
+            }
+            return new String(chars);
+        }
+        return (String) value;
+    }
+
+    // only lower case digits, since decodeHex always gives back lower case
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+}
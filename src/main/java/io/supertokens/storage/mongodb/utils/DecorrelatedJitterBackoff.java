@@ -0,0 +1,66 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.utils;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Exponential backoff with "decorrelated jitter": each delay is picked at random between the initial delay and three
+ * times the previous delay, capped at the max delay. The first delay is always the initial delay, so that a short
+ * blip is retried quickly.
+ *
+ * Compared to a fixed interval, this gets to the max delay quickly when the failure lasts, and the randomness means
+ * that many processes that started failing at the same time do not all retry at the same time.
+ *
+ * This is not thread safe - each retry loop should use its own instance.
+ */
+public class DecorrelatedJitterBackoff {
+
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+    private final Random random;
+    private long previousDelayMs = 0;
+
+    public DecorrelatedJitterBackoff(long initialDelayMs, long maxDelayMs) {
+        this(initialDelayMs, maxDelayMs, ThreadLocalRandom.current());
+    }
+
+    public DecorrelatedJitterBackoff(long initialDelayMs, long maxDelayMs, Random random) {
+        if (initialDelayMs <= 0 || maxDelayMs < initialDelayMs) {
+            throw new IllegalArgumentException("initialDelayMs must be positive and not more than maxDelayMs");
+        }
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.random = random;
+    }
+
+    public long nextDelayMs() {
+        long delay;
+        if (previousDelayMs == 0) {
+            delay = initialDelayMs;
+        } else {
+            // the multiplication is capped first so that it cannot overflow
+            long upperBound = Math.min(maxDelayMs, Math.min(previousDelayMs, maxDelayMs) * 3);
+            delay = initialDelayMs + (long) (random.nextDouble() * (upperBound - initialDelayMs + 1));
+            delay = Math.min(delay, maxDelayMs);
+        }
+        previousDelayMs = delay;
+        return delay;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.utils;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Converts Gson trees to BSON documents directly, without going through a JSON string. The way back is done while
+ * decoding, by BsonReaders.readPayload.
+ *
+ * Not every JSON object can be stored as is in MongoDB (for example, older servers reject field names that contain
+ * a '.' or start with a '$'), and not every JSON number has a lossless BSON equivalent. For such objects, toDocument
+ * returns null, and the caller is expected to store the payload as a string instead.
+ */
+public class JsonDocumentConverter {
+
+    // MongoDB allows at most 100 levels of nesting, and the session document itself is one of them.
+    private static final int MAX_DEPTH = 90;
+
+    // returned by toBsonValue for values that cannot be stored natively
+    private static final Object UNSUPPORTED = new Object();
+
+    @Nullable
+    public static Document toDocument(JsonObject json) {
+        return toDocument(json, 0);
+    }
+
+    @Nullable
+    private static Document toDocument(JsonObject json, int depth) {
+        if (depth > MAX_DEPTH) {
+            return null;
+        }
+        Document result = new Document();
+        for (Map.Entry<String, JsonElement> entry : json.entrySet()) {
+            String key = entry.getKey();
+            if (key.startsWith("$") || key.contains(".") || key.indexOf('\0') != -1) {
+                return null;
+            }
+            Object value = toBsonValue(entry.getValue(), depth + 1);
+            if (value == UNSUPPORTED) {
+                return null;
+            }
+            result.append(key, value);
+        }
+        return result;
+    }
+
+    private static Object toBsonValue(JsonElement element, int depth) {
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        if (element.isJsonObject()) {
+            Document document = toDocument(element.getAsJsonObject(), depth);
+            return document == null ? UNSUPPORTED : document;
+        }
+        if (element.isJsonArray()) {
+            if (depth > MAX_DEPTH) {
+                return UNSUPPORTED;
+            }
+            List<Object> list = new ArrayList<>();
+            for (JsonElement item : element.getAsJsonArray()) {
+                Object value = toBsonValue(item, depth + 1);
+                if (value == UNSUPPORTED) {
+                    return UNSUPPORTED;
+                }
+                list.add(value);
+            }
+            return list;
+        }
+        JsonPrimitive primitive = element.getAsJsonPrimitive();
+        if (primitive.isBoolean()) {
+            return primitive.getAsBoolean();
+        }
+        if (primitive.isString()) {
+            return primitive.getAsString();
+        }
+        return toBsonNumber(primitive.getAsString());
+    }
+
+    private static Object toBsonNumber(String number) {
+        boolean isIntegral = number.indexOf('.') == -1 && number.indexOf('e') == -1 && number.indexOf('E') == -1;
+        if (isIntegral) {
+            try {
+                long value = Long.parseLong(number);
+                if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    return (int) value;
+                }
+                return value;
+            } catch (NumberFormatException e) {
+                // larger than a long. A double would lose precision here, so we do not store it natively.
+                return UNSUPPORTED;
+            }
+        }
+        try {
+            BigDecimal exact = new BigDecimal(number);
+            double value = exact.doubleValue();
+            if (Double.isInfinite(value) || Double.isNaN(value)) {
+                return UNSUPPORTED;
+            }
+            if (BigDecimal.valueOf(value).compareTo(exact) == 0) {
+                return value;
+            }
+            // more digits than a double can hold, like 0.1234567890123456789. Decimal128 keeps up to 34 of them, and
+            // throws if it would have to round.
+            return new Decimal128(exact);
+        } catch (NumberFormatException e) {
+            return UNSUPPORTED;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/*
+ * Tests the package private methods of SessionCache directly, without going through getSession. The tests that go
+ * through Start are in io.supertokens.storage.mongodb.test.SessionCacheTest.
+ */
+public class SessionCacheVersionTest {
+
+    private static RawBsonDocument session(String sessionHandle, String userId, BsonValue expiresAt) {
+        BsonDocument document = new BsonDocument("_id", new BsonString(sessionHandle))
+                .append("user_id", new BsonString(userId))
+                .append("expires_at", expiresAt);
+        return new RawBsonDocument(document, new BsonDocumentCodec());
+    }
+
+    private static BsonInt64 inAnHour() {
+        return new BsonInt64(System.currentTimeMillis() + 3600000);
+    }
+
+    @Test
+    public void testThatAReadRacingWithAWriteIsNotCached() {
+        SessionCache cache = new SessionCache(100, 60000);
+
+        // a read that started before an update of the same session, and that finishes after it
+        long versionBeforeRead = cache.getVersion("handle");
+        cache.invalidate("handle");
+        cache.put("handle", session("handle", "user", inAnHour()), versionBeforeRead);
+        assertNull(cache.get("handle"));
+
+        // the same for deleting all sessions of the user
+        versionBeforeRead = cache.getVersion("handle");
+        cache.invalidateUser("user");
+        cache.put("handle", session("handle", "user", inAnHour()), versionBeforeRead);
+        assertNull(cache.get("handle"));
+
+        // and for deleting everything
+        versionBeforeRead = cache.getVersion("handle");
+        cache.invalidateAll();
+        cache.put("handle", session("handle", "user", inAnHour()), versionBeforeRead);
+        assertNull(cache.get("handle"));
+
+        // without a write in between, the read is cached
+        versionBeforeRead = cache.getVersion("handle");
+        cache.put("handle", session("handle", "user", inAnHour()), versionBeforeRead);
+        assertNotNull(cache.get("handle"));
+    }
+
+    @Test
+    public void testThatAWriteOnlyStopsTheReadsOfItsOwnSessionFromBeingCached() {
+        SessionCache cache = new SessionCache(100, 60000);
+
+        // versions are kept in stripes, so this picks a session that is not in the same stripe as "handle"
+        String other = "other";
+        for (int i = 0; versionStripesCollide("handle", other); i++) {
+            other = "other" + i;
+        }
+        long versionBeforeRead = cache.getVersion(other);
+        cache.invalidate("handle");
+        cache.put(other, session(other, "user", inAnHour()), versionBeforeRead);
+        assertNotNull(cache.get(other));
+    }
+
+    @Test
+    public void testThatExpiresAtIsReadWhateverItsNumberType() {
+        SessionCache cache = new SessionCache(100, 60000);
+        long inAnHour = System.currentTimeMillis() + 3600000;
+
+        cache.put("long", session("long", "user", new BsonInt64(inAnHour)), cache.getVersion("long"));
+        cache.put("double", session("double", "user", new BsonDouble(inAnHour)), cache.getVersion("double"));
+        assertNotNull(cache.get("long"));
+        assertNotNull(cache.get("double"));
+
+        // an expiry that fits in an int is long gone, so it is not served from the cache
+        cache.put("int", session("int", "user", new BsonInt32(1000)), cache.getVersion("int"));
+        assertNull(cache.get("int"));
+    }
+
+    @Test
+    public void testThatNothingIsCachedWhenDisabled() {
+        SessionCache cache = new SessionCache(0, 60000);
+
+        cache.put("handle", session("handle", "user", inAnHour()), cache.getVersion("handle"));
+        assertNull(cache.get("handle"));
+        assertEquals(0, cache.getHitCount());
+    }
+
+    private static boolean versionStripesCollide(String a, String b) {
+        SessionCache probe = new SessionCache(100, 60000);
+        probe.invalidate(a);
+        return probe.getVersion(b) != 0;
+    }
+}
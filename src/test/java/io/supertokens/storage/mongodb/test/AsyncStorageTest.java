@@ -0,0 +1,156 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import com.google.gson.JsonObject;
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.KeyValueInfo;
+import io.supertokens.pluginInterface.KeyValueInfoWithLastUpdated;
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import io.supertokens.pluginInterface.session.SessionInfo;
+import io.supertokens.storage.mongodb.AsyncStorage;
+import io.supertokens.storage.mongodb.Start;
+import io.supertokens.storageLayer.StorageLayer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class AsyncStorageTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static boolean jvmSupportsVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static void testFanOuts(Start start) throws Exception {
+        long now = System.currentTimeMillis();
+        for (String sessionHandle : new String[]{"handle1", "handle2", "handle3"}) {
+            start.createNewSession(TenantIdentifier.BASE_TENANT, sessionHandle, "user", "0a1b", new JsonObject(),
+                    now + 3600000, new JsonObject(), now, false);
+        }
+        start.setKeyValue(TenantIdentifier.BASE_TENANT, "key1", new KeyValueInfo("value1", 1));
+        start.setKeyValue(TenantIdentifier.BASE_TENANT, "key2", new KeyValueInfo("value2", 2));
+
+        AsyncStorage asyncStorage = start.getAsyncStorage();
+
+        // the ones that do not exist are left out
+        Map<String, SessionInfo> sessions = asyncStorage
+                .getSessions(new String[]{"handle1", "handle2", "handle3", "missing"}).get();
+        assertEquals(3, sessions.size());
+        for (String sessionHandle : new String[]{"handle1", "handle2", "handle3"}) {
+            assertEquals(sessionHandle, sessions.get(sessionHandle).sessionHandle);
+        }
+
+        Map<String, KeyValueInfoWithLastUpdated> keyValues = asyncStorage
+                .getKeyValues_Transaction(new String[]{"key1", "key2", "missing"}).get();
+        assertEquals(2, keyValues.size());
+        assertEquals("value1", keyValues.get("key1").value);
+        assertEquals(2, keyValues.get("key2").createdAtTime);
+
+        assertTrue(asyncStorage.getSessions(new String[0]).get().isEmpty());
+    }
+
+    @Test
+    public void testThatFanOutsCollectEveryResultOnAThreadPool() throws Exception {
+        String[] args = {"../"};
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        assertFalse(start.getAsyncStorage().isUsingVirtualThreads());
+        testFanOuts(start);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatVirtualThreadsAreUsedOnlyIfTheJVMSupportsThem() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_async_storage_use_virtual_threads", "true");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        // on older JVMs, this falls back to the thread pool, which works the same way
+        assertEquals(jvmSupportsVirtualThreads(), start.getAsyncStorage().isUsingVirtualThreads());
+        testFanOuts(start);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatCallsFailAfterTheStorageLayerIsClosed() throws Exception {
+        String[] args = {"../"};
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        AsyncStorage asyncStorage = start.getAsyncStorage();
+        assertNull(asyncStorage.getSession("missing").get());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+
+        // the closed instance is kept, so this does not start a new executor
+        assertSame(asyncStorage, start.getAsyncStorage());
+        CompletableFuture<?>[] calls = {asyncStorage.getSession("missing"),
+                asyncStorage.getSessions(new String[]{"handle1", "handle2"}),
+                asyncStorage.getKeyValues_Transaction(new String[]{"key1"})};
+        for (CompletableFuture<?> call : calls) {
+            try {
+                call.get();
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof StorageQueryException);
+            }
+        }
+    }
+}
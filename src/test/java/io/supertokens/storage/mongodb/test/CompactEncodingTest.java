@@ -0,0 +1,155 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import com.google.gson.JsonObject;
+import com.mongodb.client.model.Filters;
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import io.supertokens.pluginInterface.session.noSqlStorage.SessionInfoWithLastUpdated;
+import io.supertokens.storage.mongodb.CollectionRegistry;
+import io.supertokens.storage.mongodb.Start;
+import io.supertokens.storage.mongodb.utils.CompactEncoding;
+import io.supertokens.storageLayer.StorageLayer;
+import org.bson.BsonBinarySubType;
+import org.bson.RawBsonDocument;
+import org.bson.types.Binary;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class CompactEncodingTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    @Test
+    public void testThatUUIDsRoundTrip() {
+        for (int i = 0; i < 100; i++) {
+            String uuid = UUID.randomUUID().toString();
+            Object encoded = CompactEncoding.encodeUUID(uuid);
+            assertTrue(encoded instanceof Binary);
+            assertEquals(BsonBinarySubType.UUID_STANDARD.getValue(), ((Binary) encoded).getType());
+            assertEquals(16, ((Binary) encoded).getData().length);
+            assertEquals(uuid, CompactEncoding.decodeUUID(encoded));
+        }
+    }
+
+    @Test
+    public void testThatNonCanonicalUUIDsStayStrings() {
+        String upperCase = UUID.randomUUID().toString().toUpperCase();
+        assertEquals(upperCase, CompactEncoding.encodeUUID(upperCase));
+        // UUID.fromString accepts this, but would give it back as 00000001-0002-0003-0004-000000000005
+        assertEquals("1-2-3-4-5", CompactEncoding.encodeUUID("1-2-3-4-5"));
+        assertEquals("not a uuid", CompactEncoding.encodeUUID("not a uuid"));
+        // a UUID with braces, as some tools write them
+        String braced = "{" + UUID.randomUUID() + "}";
+        assertEquals(braced, CompactEncoding.encodeUUID(braced));
+
+        assertEquals(upperCase, CompactEncoding.decodeUUID(upperCase));
+    }
+
+    @Test
+    public void testThatHexRoundTrips() {
+        String hex = "0123456789abcdef00ff";
+        Object encoded = CompactEncoding.encodeHex(hex);
+        assertTrue(encoded instanceof Binary);
+        assertEquals(hex.length() / 2, ((Binary) encoded).getData().length);
+        assertEquals(hex, CompactEncoding.decodeHex(encoded));
+
+        assertEquals("", CompactEncoding.decodeHex(CompactEncoding.encodeHex("")));
+    }
+
+    @Test
+    public void testThatNonCanonicalHexStaysAString() {
+        // decodeHex always gives back lower case, so upper case cannot be encoded
+        assertEquals("ABCDEF", CompactEncoding.encodeHex("ABCDEF"));
+        assertEquals("abc", CompactEncoding.encodeHex("abc"));
+        assertEquals("zz", CompactEncoding.encodeHex("zz"));
+
+        assertEquals("ABCDEF", CompactEncoding.decodeHex("ABCDEF"));
+    }
+
+    private static RawBsonDocument readSession(Start start, String sessionHandle) {
+        return CollectionRegistry.getInstance(start).getSessionsAsRawBson().find(Filters.eq("_id", sessionHandle))
+                .first();
+    }
+
+    // refreshes the session with the given encoding, starting from whatever encoding it is stored in now
+    private static void refreshWithEncoding(boolean useCompactEncoding, String newHash) throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_use_compact_session_encoding", String.valueOf(useCompactEncoding));
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        SessionInfoWithLastUpdated session = start.getSessionInfo_Transaction("handle");
+        assertTrue(start.updateSessionInfo_Transaction("handle", newHash, session.expiry, session.lastUpdatedSign,
+                false));
+        // the sign has changed, so the same one cannot be used again
+        assertFalse(start.updateSessionInfo_Transaction("handle", newHash, session.expiry, session.lastUpdatedSign,
+                false));
+
+        RawBsonDocument stored = readSession(start, "handle");
+        assertEquals(useCompactEncoding, stored.get("last_updated_sign").isBinary());
+        assertEquals(useCompactEncoding, stored.get("refresh_token_hash_2").isBinary());
+        assertEquals(newHash, start.getSessionInfo_Transaction("handle").refreshTokenHash2);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatSessionsCanBeRefreshedAcrossEncodings() throws Exception {
+        String[] args = {"../"};
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        start.createNewSession(TenantIdentifier.BASE_TENANT, "handle", "user", "0a1b", new JsonObject(),
+                System.currentTimeMillis() + 3600000, new JsonObject(), System.currentTimeMillis(), false);
+        assertTrue(readSession(start, "handle").get("last_updated_sign").isString());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+
+        // written as strings, refreshed with the compact encoding
+        refreshWithEncoding(true, "2c3d");
+        // written with the compact encoding, refreshed without it
+        refreshWithEncoding(false, "4e5f");
+    }
+}
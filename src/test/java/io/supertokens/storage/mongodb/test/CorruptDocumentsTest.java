@@ -0,0 +1,109 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import io.supertokens.storage.mongodb.CollectionRegistry;
+import io.supertokens.storage.mongodb.Start;
+import io.supertokens.storageLayer.StorageLayer;
+import org.bson.Document;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import static org.junit.Assert.*;
+
+public class CorruptDocumentsTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static Document sessionWithPayload(String sessionHandle, String sessionData) {
+        long now = System.currentTimeMillis();
+        return new Document("_id", sessionHandle).append("user_id", "user").append("refresh_token_hash_2", "0a1b")
+                .append("session_data", sessionData).append("expires_at", now + 3600000)
+                .append("jwt_user_payload", "{}").append("created_at_time", now).append("last_updated_sign", "sign")
+                .append("use_static_key", false);
+    }
+
+    @Test
+    public void testThatCorruptSessionPayloadsFailAsStorageQueryExceptions() throws Exception {
+        String[] args = {"../"};
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        CollectionRegistry collections = CollectionRegistry.getInstance(start);
+        collections.getSessions().insertOne(sessionWithPayload("malformed", "{\"key\": "));
+        // valid JSON, but not an object
+        collections.getSessions().insertOne(sessionWithPayload("array", "[1, 2]"));
+
+        for (String sessionHandle : new String[]{"malformed", "array"}) {
+            try {
+                start.getSession(TenantIdentifier.BASE_TENANT, sessionHandle);
+                fail();
+            } catch (StorageQueryException ignored) {
+            }
+            try {
+                start.getSessionInfo_Transaction(sessionHandle);
+                fail();
+            } catch (StorageQueryException ignored) {
+            }
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatCorruptJWTSigningKeysFailAsStorageQueryExceptions() throws Exception {
+        String[] args = {"../"};
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        // no key_string
+        CollectionRegistry.getInstance(start).getJWTSigningKeys().insertOne(new Document("_id", "key")
+                .append("created_at", System.currentTimeMillis()).append("algorithm", "RS256"));
+
+        try {
+            start.getJWTSigningKeys_Transaction();
+            fail();
+        } catch (StorageQueryException ignored) {
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import com.mongodb.client.model.Filters;
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import io.supertokens.storage.mongodb.CollectionRegistry;
+import io.supertokens.storage.mongodb.Start;
+import io.supertokens.storageLayer.StorageLayer;
+import org.bson.Document;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DeleteSessionTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static Document session(String sessionHandle, String userId) {
+        long now = System.currentTimeMillis();
+        return new Document("_id", sessionHandle).append("user_id", userId).append("refresh_token_hash_2", "0a1b")
+                .append("session_data", "{}").append("expires_at", now + 3600000).append("jwt_user_payload", "{}")
+                .append("created_at_time", now).append("last_updated_sign", "sign").append("use_static_key", false);
+    }
+
+    // creates count sessions for the user "deleted", and 10 for the user "kept", and then deletes all of the first ones
+    private static void testDeletingSessions(Start start, int count) throws Exception {
+        CollectionRegistry collections = CollectionRegistry.getInstance(start);
+        collections.getSessions().deleteMany(new Document());
+
+        List<Document> sessions = new ArrayList<>();
+        String[] toDelete = new String[count];
+        for (int i = 0; i < count; i++) {
+            toDelete[i] = "deleted" + i;
+            sessions.add(session(toDelete[i], "deleted"));
+        }
+        for (int i = 0; i < 10; i++) {
+            sessions.add(session("kept" + i, "kept"));
+        }
+        collections.getSessions().insertMany(sessions);
+
+        assertEquals(count, start.deleteSession(TenantIdentifier.BASE_TENANT, toDelete));
+
+        assertEquals(0, collections.getSessions().countDocuments(Filters.eq("user_id", "deleted")));
+        assertEquals(10, collections.getSessions().countDocuments(Filters.eq("user_id", "kept")));
+        // nothing is left to delete the second time
+        assertEquals(0, start.deleteSession(TenantIdentifier.BASE_TENANT, toDelete));
+    }
+
+    @Test
+    public void testThatSessionsAreDeletedInBatches() throws Exception {
+        String[] args = {"../"};
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        // within one batch, exactly one batch, one more than a batch, and several batches
+        testDeletingSessions(start, 1);
+        testDeletingSessions(start, 1000);
+        testDeletingSessions(start, 1001);
+        testDeletingSessions(start, 2500);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatHandlesThatDoNotExistAreNotCounted() throws Exception {
+        String[] args = {"../"};
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        CollectionRegistry.getInstance(start).getSessions().insertOne(session("existing", "user"));
+        String[] handles = new String[1500];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = "missing" + i;
+        }
+        // in the second batch
+        handles[1200] = "existing";
+
+        assertEquals(1, start.deleteSession(TenantIdentifier.BASE_TENANT, handles));
+        assertEquals(0, start.deleteSession(TenantIdentifier.BASE_TENANT, new String[0]));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import com.google.gson.JsonObject;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoWriteConcernException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteConcern;
+import com.mongodb.WriteConcernError;
+import com.mongodb.WriteConcernResult;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.result.DeleteResult;
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import io.supertokens.storage.mongodb.CollectionRegistry;
+import io.supertokens.storage.mongodb.ConnectionPoolTestContent;
+import io.supertokens.storage.mongodb.ExpiredSessionsCleanup;
+import io.supertokens.storage.mongodb.Start;
+import io.supertokens.storageLayer.StorageLayer;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ExpiredSessionsCleanupTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCursor<Document> cursorOver(String... ids) {
+        MongoCursor<Document> cursor = mock(MongoCursor.class);
+        Iterator<String> remaining = Arrays.asList(ids).iterator();
+        when(cursor.hasNext()).thenAnswer(invocation -> remaining.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> new Document("_id", remaining.next()));
+        return cursor;
+    }
+
+    // a collection whose find returns the given chunks of _ids one after the other, and which deletes through the
+    // returned majority collection
+    private static class MockedCollection {
+        final MongoCollection<Document> collection;
+        final MongoCollection<Document> majority;
+        final FindIterable<Document> find;
+
+        @SuppressWarnings("unchecked")
+        MockedCollection(Start start, MongoCursor<Document> first, MongoCursor<Document>... rest) {
+            collection = mock(MongoCollection.class);
+            majority = mock(MongoCollection.class);
+            find = mock(FindIterable.class);
+            when(collection.withWriteConcern(any())).thenReturn(majority);
+            when(collection.find(any(Bson.class))).thenReturn(find);
+            when(find.projection(any())).thenReturn(find);
+            when(find.sort(any())).thenReturn(find);
+            when(find.limit(anyInt())).thenReturn(find);
+            when(find.iterator()).thenReturn(first, rest);
+            ConnectionPoolTestContent.getInstance(start)
+                    .setKeyValue(ConnectionPoolTestContent.EXPIRED_SESSIONS_CLEANUP_COLLECTION, collection);
+        }
+    }
+
+    private static DeleteResult deletedAfter(long delayMs, long count) throws InterruptedException {
+        Thread.sleep(delayMs);
+        return DeleteResult.acknowledged(count);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testThatChunksAreDeletedOldestFirstWithAMajorityWriteConcern() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_expired_sessions_cleanup_chunk_size", "2");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+        ExpiredSessionsCleanup cleanup = ExpiredSessionsCleanup.getInstance(start);
+        long chunksBefore = cleanup.getTotalChunksDeleted();
+        long sessionsBefore = cleanup.getTotalSessionsDeleted();
+        long pausedBefore = cleanup.getTotalTimePausedMs();
+
+        MockedCollection mocked = new MockedCollection(start, cursorOver("a", "b"), cursorOver("c", "d"),
+                cursorOver("e"));
+        when(mocked.majority.deleteMany(any(Bson.class))).thenAnswer(invocation -> deletedAfter(50, 2))
+                .thenAnswer(invocation -> deletedAfter(50, 2)).thenAnswer(invocation -> deletedAfter(50, 1));
+
+        start.deleteAllExpiredSessions();
+
+        // the last chunk was not full, so there was nothing left to look for after it
+        verify(mocked.find, times(3)).iterator();
+        verify(mocked.majority, times(3)).deleteMany(any(Bson.class));
+        verify(mocked.collection, never()).deleteMany(any(Bson.class));
+
+        ArgumentCaptor<WriteConcern> writeConcern = ArgumentCaptor.forClass(WriteConcern.class);
+        verify(mocked.collection).withWriteConcern(writeConcern.capture());
+        assertEquals("majority", writeConcern.getValue().getWString());
+        assertEquals(Integer.valueOf(10000), writeConcern.getValue().getWTimeout(TimeUnit.MILLISECONDS));
+
+        ArgumentCaptor<Bson> sort = ArgumentCaptor.forClass(Bson.class);
+        verify(mocked.find, times(3)).sort(sort.capture());
+        for (Bson value : sort.getAllValues()) {
+            assertEquals(new BsonDocument("expires_at", new BsonInt32(1)),
+                    value.toBsonDocument(Document.class, MongoClientSettings.getDefaultCodecRegistry()));
+        }
+        verify(mocked.find, times(3)).limit(2);
+
+        assertEquals(3, cleanup.getTotalChunksDeleted() - chunksBefore);
+        assertEquals(5, cleanup.getTotalSessionsDeleted() - sessionsBefore);
+        assertEquals(5, cleanup.getSessionsDeletedInCurrentRun());
+        // a pause after each of the two full chunks, each at least as long as the chunk took
+        long paused = cleanup.getTotalTimePausedMs() - pausedBefore;
+        assertTrue("Paused for " + paused + " ms", paused >= 100 && paused < 2000);
+        assertTrue(cleanup.getLastRunDurationMs() >= 150);
+        assertFalse(cleanup.isRunning());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatThePauseIsCapped() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_expired_sessions_cleanup_chunk_size", "1");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+        ExpiredSessionsCleanup cleanup = ExpiredSessionsCleanup.getInstance(start);
+        long pausedBefore = cleanup.getTotalTimePausedMs();
+
+        MockedCollection mocked = new MockedCollection(start, cursorOver("a"), cursorOver());
+        when(mocked.majority.deleteMany(any(Bson.class))).thenAnswer(invocation -> deletedAfter(1500, 1));
+
+        start.deleteAllExpiredSessions();
+
+        assertEquals(1000, cleanup.getTotalTimePausedMs() - pausedBefore);
+        assertEquals(1, cleanup.getSessionsDeletedInCurrentRun());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatARunStopsWhenAMajorityDoesNotAcknowledgeAChunk() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_expired_sessions_cleanup_chunk_size", "2");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+        ExpiredSessionsCleanup cleanup = ExpiredSessionsCleanup.getInstance(start);
+        long timeoutsBefore = cleanup.getTotalWriteConcernTimeouts();
+        long chunksBefore = cleanup.getTotalChunksDeleted();
+
+        MockedCollection mocked = new MockedCollection(start, cursorOver("a", "b"), cursorOver("c", "d"));
+        when(mocked.majority.deleteMany(any(Bson.class))).thenThrow(new MongoWriteConcernException(
+                new WriteConcernError(64, "WriteConcernFailed", "waiting for replication timed out",
+                        new BsonDocument()), WriteConcernResult.acknowledged(2, false, null), new ServerAddress()));
+
+        start.deleteAllExpiredSessions();
+
+        verify(mocked.find, times(1)).iterator();
+        assertEquals(1, cleanup.getTotalWriteConcernTimeouts() - timeoutsBefore);
+        assertEquals(1, cleanup.getTotalChunksDeleted() - chunksBefore);
+        // the deletes still happened on the primary
+        assertEquals(2, cleanup.getSessionsDeletedInCurrentRun());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatOnlyExpiredSessionsAreDeletedAcrossChunks() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_expired_sessions_cleanup_chunk_size", "10");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+        ExpiredSessionsCleanup cleanup = ExpiredSessionsCleanup.getInstance(start);
+        long chunksBefore = cleanup.getTotalChunksDeleted();
+        long sessionsBefore = cleanup.getTotalSessionsDeleted();
+
+        long now = System.currentTimeMillis();
+        Set<String> alive = new HashSet<>();
+        // 25 expired sessions, interleaved with the live ones
+        for (int i = 0; i < 30; i++) {
+            String sessionHandle = "session" + i;
+            boolean isAlive = i % 6 == 0;
+            long expiry = isAlive ? now + 3600000 : now - 1000 - i;
+            start.createNewSession(TenantIdentifier.BASE_TENANT, sessionHandle, "user" + (i % 3), "0a1b",
+                    new JsonObject(), expiry, new JsonObject(), now - 7200000, false);
+            if (isAlive) {
+                alive.add(sessionHandle);
+            }
+        }
+        assertEquals(5, alive.size());
+
+        start.deleteAllExpiredSessions();
+
+        List<String> remaining = new ArrayList<>();
+        for (Document session : CollectionRegistry.getInstance(start).getSessions().find()) {
+            remaining.add(session.getString("_id"));
+        }
+        assertEquals(alive, new HashSet<>(remaining));
+        assertEquals(5, remaining.size());
+
+        assertEquals(25, cleanup.getTotalSessionsDeleted() - sessionsBefore);
+        assertEquals(25, cleanup.getSessionsDeletedInCurrentRun());
+        // 10, 10 and then 5, which ends the run
+        assertEquals(3, cleanup.getTotalChunksDeleted() - chunksBefore);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import com.google.gson.JsonObject;
+import com.mongodb.client.MongoDatabase;
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import io.supertokens.storage.mongodb.ConnectionPool;
+import io.supertokens.storage.mongodb.Start;
+import io.supertokens.storage.mongodb.config.Config;
+import io.supertokens.storageLayer.StorageLayer;
+import org.bson.Document;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class IndexesTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static Set<String> getIndexNames(Start start, String collectionName) {
+        Set<String> result = new HashSet<>();
+        for (Document index : ConnectionPool.getClientConnectedToDatabase(start).getCollection(collectionName)
+                .listIndexes()) {
+            result.add(index.getString("name"));
+        }
+        return result;
+    }
+
+    @Test
+    public void testThatIndexesAreCreatedOnStartup() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_collection_names_prefix", "index_test");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        Set<String> sessionIndexes = getIndexNames(start, Config.getConfig(start).getSessionInfoCollection());
+        assertTrue(sessionIndexes.contains("user_id_1_expires_at_1__id_1"));
+        assertTrue(sessionIndexes.contains("expires_at_1"));
+
+        Set<String> jwtIndexes = getIndexNames(start, Config.getConfig(start).getJWTSigningKeysCollection());
+        assertTrue(jwtIndexes.contains("algorithm_1"));
+        assertTrue(jwtIndexes.contains("created_at_-1"));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    // returns the names of all the indexes used by the plan, however deeply its stages are nested
+    private static void collectIndexNames(Object plan, Set<String> result) {
+        if (plan instanceof Document) {
+            for (Map.Entry<String, Object> entry : ((Document) plan).entrySet()) {
+                if (entry.getKey().equals("indexName")) {
+                    result.add((String) entry.getValue());
+                } else {
+                    collectIndexNames(entry.getValue(), result);
+                }
+            }
+        } else if (plan instanceof List) {
+            for (Object stage : (List<?>) plan) {
+                collectIndexNames(stage, result);
+            }
+        }
+    }
+
+    @Test
+    public void testThatListingTheSessionHandlesOfAUserIsACoveredQuery() throws Exception {
+        String[] args = {"../"};
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 20; i++) {
+            start.createNewSession(TenantIdentifier.BASE_TENANT, "session" + i, "user" + (i % 2), "0a1b",
+                    new JsonObject(), i % 4 == 0 ? now - 1000 : now + 3600000, new JsonObject(), now, false);
+        }
+        assertEquals(5, start.getAllNonExpiredSessionHandlesForUser(TenantIdentifier.BASE_TENANT, "user0").length);
+
+        // the same query as getAllNonExpiredSessionHandlesForUser
+        MongoDatabase database = ConnectionPool.getClientConnectedToDatabase(start);
+        Document explain = database.runCommand(new Document("explain", new Document("find",
+                Config.getConfig(start).getSessionInfoCollection())
+                .append("filter", new Document("user_id", "user0").append("expires_at", new Document("$gte", now)))
+                .append("projection", new Document("_id", 1))).append("verbosity", "executionStats"));
+
+        Set<String> indexNames = new HashSet<>();
+        collectIndexNames(explain.get("queryPlanner", Document.class).get("winningPlan"), indexNames);
+        assertEquals(Collections.singleton("user_id_1_expires_at_1__id_1"), indexNames);
+
+        Document executionStats = explain.get("executionStats", Document.class);
+        assertEquals(5, executionStats.getInteger("nReturned").intValue());
+        assertEquals(0, executionStats.getInteger("totalDocsExamined").intValue());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatIndexesAreNotCreatedIfDisabled() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_collection_names_prefix", "no_index_test");
+        Utils.setValueInConfig("mongodb_auto_create_indexes", "false");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        Set<String> sessionIndexes = getIndexNames(start, Config.getConfig(start).getSessionInfoCollection());
+        assertFalse(sessionIndexes.contains("user_id_1_expires_at_1__id_1"));
+        assertFalse(sessionIndexes.contains("expires_at_1"));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.KeyValueInfo;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import io.supertokens.storage.mongodb.ConnectionPoolTestContent;
+import io.supertokens.storage.mongodb.Start;
+import io.supertokens.storage.mongodb.utils.DecorrelatedJitterBackoff;
+import io.supertokens.storageLayer.StorageLayer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class InitRetryTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    @Test
+    public void testThatBackoffStartsShortAndStaysWithinBounds() {
+        DecorrelatedJitterBackoff backoff = new DecorrelatedJitterBackoff(100, 10000, new Random(42));
+
+        assertEquals(100, backoff.nextDelayMs());
+
+        long previous = 100;
+        boolean reachedMax = false;
+        for (int i = 0; i < 100; i++) {
+            long delay = backoff.nextDelayMs();
+            assertTrue(delay >= 100);
+            assertTrue(delay <= Math.min(10000, previous * 3));
+            reachedMax = reachedMax || delay > 5000;
+            previous = delay;
+        }
+        assertTrue(reachedMax);
+    }
+
+    @Test
+    public void testThatStartupIsQuickOnceMongoDBBecomesAvailable() throws Exception {
+        String[] args = {"../"};
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args, false);
+        process.getProcess().waitToInitStorageModule();
+        process.startProcess();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.WAITING_TO_INIT_STORAGE_MODULE));
+
+        // a disabled storage layer is treated like MongoDB not being reachable
+        StorageLayer.getStorage(process.getProcess()).setStorageLayerEnabled(false);
+        ConnectionPoolTestContent.getInstance((Start) StorageLayer.getStorage(process.getProcess()))
+                .setKeyValue(ConnectionPoolTestContent.TIME_TO_WAIT_TO_INIT, 20000);
+        ConnectionPoolTestContent.getInstance((Start) StorageLayer.getStorage(process.getProcess()))
+                .setKeyValue(ConnectionPoolTestContent.RETRY_INTERVAL_IF_INIT_FAILS, 1000);
+        process.getProcess().proceedWithInitingStorageModule();
+
+        Thread.sleep(3000);
+        long availableAt = System.currentTimeMillis();
+        StorageLayer.getStorage(process.getProcess()).setStorageLayerEnabled(true);
+
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        long timeToReady = System.currentTimeMillis() - availableAt;
+
+        // at most one retry interval, plus the time it takes to connect and start the rest of the core
+        assertTrue("Took " + timeToReady + " ms to start", timeToReady < 3000);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatQueriesWaitForBackgroundInitialisation() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_initialise_in_background", "true");
+        Utils.setValueInConfig("mongodb_background_initialisation_wait_timeout_ms", "20000");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args, false);
+        process.getProcess().waitToInitStorageModule();
+        process.startProcess();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.WAITING_TO_INIT_STORAGE_MODULE));
+
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+        start.setStorageLayerEnabled(false);
+        ConnectionPoolTestContent.getInstance(start)
+                .setKeyValue(ConnectionPoolTestContent.TIME_TO_WAIT_TO_INIT, 20000);
+        ConnectionPoolTestContent.getInstance(start)
+                .setKeyValue(ConnectionPoolTestContent.RETRY_INTERVAL_IF_INIT_FAILS, 1000);
+        process.getProcess().proceedWithInitingStorageModule();
+
+        Thread.sleep(3000);
+        start.setStorageLayerEnabled(true);
+
+        // the core's own startup queries waited for the connection pool instead of failing
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        start.setKeyValue(new TenantIdentifier(null, null, null), "background_init_key",
+                new KeyValueInfo("value", 1));
+        assertEquals("value", start.getKeyValue(new TenantIdentifier(null, null, null), "background_init_key").value);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatBackgroundInitialisationIsRetriedAfterItFails() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_initialise_in_background", "true");
+        Utils.setValueInConfig("mongodb_background_initialisation_wait_timeout_ms", "20000");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args, false);
+        process.getProcess().waitToInitStorageModule();
+        process.startProcess();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.WAITING_TO_INIT_STORAGE_MODULE));
+
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+        start.setStorageLayerEnabled(false);
+        // the first attempt gives up after a second
+        ConnectionPoolTestContent.getInstance(start)
+                .setKeyValue(ConnectionPoolTestContent.TIME_TO_WAIT_TO_INIT, 1000);
+        ConnectionPoolTestContent.getInstance(start)
+                .setKeyValue(ConnectionPoolTestContent.RETRY_INTERVAL_IF_INIT_FAILS, 500);
+        process.getProcess().proceedWithInitingStorageModule();
+
+        Thread.sleep(4000);
+        start.setStorageLayerEnabled(true);
+
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        start.setKeyValue(new TenantIdentifier(null, null, null), "background_init_key",
+                new KeyValueInfo("value", 1));
+        assertEquals("value", start.getKeyValue(new TenantIdentifier(null, null, null), "background_init_key").value);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
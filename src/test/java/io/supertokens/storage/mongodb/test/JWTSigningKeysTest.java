@@ -0,0 +1,82 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.jwt.JWTAsymmetricSigningKeyInfo;
+import io.supertokens.pluginInterface.jwt.JWTSigningKeyInfo;
+import io.supertokens.pluginInterface.jwt.JWTSymmetricSigningKeyInfo;
+import io.supertokens.storage.mongodb.Start;
+import io.supertokens.storageLayer.StorageLayer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JWTSigningKeysTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    @Test
+    public void testThatKeysCanBeSetAndReadBack() throws Exception {
+        String[] args = {"../"};
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        long now = System.currentTimeMillis();
+        JWTSigningKeyInfo asymmetric = new JWTAsymmetricSigningKeyInfo("rs256-key", now, "RS256", "public|private");
+        JWTSigningKeyInfo symmetric = new JWTSymmetricSigningKeyInfo("hs256-key", now + 1, "HS256", "secret");
+
+        assertTrue(start.setJWTSigningKeyInfoIfNoKeyForAlgorithmExists_Transaction(asymmetric));
+        assertTrue(start.setJWTSigningKeyInfoIfNoKeyForAlgorithmExists_Transaction(symmetric));
+
+        // there is already a key for RS256, so this one is not set
+        JWTSigningKeyInfo otherAsymmetric = new JWTAsymmetricSigningKeyInfo("other-key", now + 2, "RS256",
+                "public2|private2");
+        assertFalse(start.setJWTSigningKeyInfoIfNoKeyForAlgorithmExists_Transaction(otherAsymmetric));
+
+        // newest first
+        List<JWTSigningKeyInfo> keys = start.getJWTSigningKeys_Transaction();
+        assertEquals(2, keys.size());
+        assertEquals(symmetric, keys.get(0));
+        assertTrue(keys.get(0) instanceof JWTSymmetricSigningKeyInfo);
+        assertEquals(asymmetric, keys.get(1));
+        assertTrue(keys.get(1) instanceof JWTAsymmetricSigningKeyInfo);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
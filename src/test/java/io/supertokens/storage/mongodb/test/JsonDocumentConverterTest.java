@@ -0,0 +1,183 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import io.supertokens.pluginInterface.session.SessionInfo;
+import io.supertokens.storage.mongodb.codecs.Codecs;
+import io.supertokens.storage.mongodb.codecs.SessionDocumentFormat;
+import io.supertokens.storage.mongodb.utils.JsonDocumentConverter;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.types.Decimal128;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JsonDocumentConverterTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    private static JsonObject parse(String json) {
+        return new JsonParser().parse(json).getAsJsonObject();
+    }
+
+    private static JsonObject nested(int depth) {
+        JsonObject result = new JsonObject();
+        result.addProperty("leaf", true);
+        for (int i = 0; i < depth; i++) {
+            JsonObject parent = new JsonObject();
+            parent.add("child", result);
+            result = parent;
+        }
+        return result;
+    }
+
+    @Test
+    public void testThatValuesAreStoredAsTheirBSONTypes() {
+        Document document = JsonDocumentConverter.toDocument(parse(
+                "{\"int\": 1, \"long\": 12345678901, \"double\": 1.5, \"string\": \"s\", \"bool\": true, "
+                        + "\"null\": null, \"array\": [1, \"a\"], \"object\": {\"key\": \"value\"}}"));
+
+        assertNotNull(document);
+        assertEquals(1, document.get("int"));
+        assertEquals(12345678901L, document.get("long"));
+        assertEquals(1.5, document.get("double"));
+        assertEquals("s", document.get("string"));
+        assertEquals(true, document.get("bool"));
+        assertTrue(document.containsKey("null"));
+        assertNull(document.get("null"));
+        assertEquals(2, ((List<?>) document.get("array")).size());
+        assertEquals("value", ((Document) document.get("object")).get("key"));
+    }
+
+    @Test
+    public void testThatKeysMongoDBCannotStoreFallBackToAString() {
+        assertNull(JsonDocumentConverter.toDocument(parse("{\"$key\": 1}")));
+        assertNull(JsonDocumentConverter.toDocument(parse("{\"a.b\": 1}")));
+
+        JsonObject withNul = new JsonObject();
+        withNul.addProperty("a\0b", 1);
+        assertNull(JsonDocumentConverter.toDocument(withNul));
+
+        // anywhere in the tree, including inside arrays
+        assertNull(JsonDocumentConverter.toDocument(parse("{\"ok\": {\"$key\": 1}}")));
+        assertNull(JsonDocumentConverter.toDocument(parse("{\"ok\": [{\"a.b\": 1}]}")));
+
+        // a '$' that is not at the start is fine
+        assertNotNull(JsonDocumentConverter.toDocument(parse("{\"a$\": 1}")));
+    }
+
+    @Test
+    public void testThatNumbersWithoutALosslessBSONTypeFallBackToAString() {
+        assertNull(JsonDocumentConverter.toDocument(parse("{\"big\": 123456789012345678901234567890}")));
+        assertNull(JsonDocumentConverter.toDocument(parse("{\"big\": [123456789012345678901234567890]}")));
+        assertNull(JsonDocumentConverter.toDocument(parse("{\"huge\": 1e400}")));
+
+        JsonObject nonFinite = new JsonObject();
+        nonFinite.add("nan", new JsonPrimitive(Double.NaN));
+        assertNull(JsonDocumentConverter.toDocument(nonFinite));
+        JsonObject infinite = new JsonObject();
+        infinite.add("infinity", new JsonPrimitive(Double.POSITIVE_INFINITY));
+        assertNull(JsonDocumentConverter.toDocument(infinite));
+
+        assertEquals(Long.MAX_VALUE, JsonDocumentConverter.toDocument(parse("{\"max\": " + Long.MAX_VALUE + "}"))
+                .get("max"));
+    }
+
+    @Test
+    public void testThatHighPrecisionDecimalsAreStoredAsDecimal128() {
+        Document document = JsonDocumentConverter.toDocument(parse(
+                "{\"precise\": 0.1234567890123456789, \"tiny\": 1e-400, \"double\": 0.1}"));
+
+        assertNotNull(document);
+        assertEquals(new Decimal128(new BigDecimal("0.1234567890123456789")), document.get("precise"));
+        assertEquals(new Decimal128(new BigDecimal("1e-400")), document.get("tiny"));
+        // still a double when that is exact
+        assertEquals(0.1, document.get("double"));
+
+        // more digits than Decimal128 can hold
+        assertNull(JsonDocumentConverter.toDocument(parse("{\"precise\": 0.1234567890123456789012345678901234567}")));
+
+        JsonObject payload = parse("{\"precise\": 0.1234567890123456789}");
+        SessionInfo sessionInfo = new SessionInfo("handle", "user", "user", "hash", payload, 100, payload, 10,
+                false);
+        SessionInfo decoded = Codecs.decodeSessionInfo(encode(sessionInfo, true));
+        assertEquals(new BigDecimal("0.1234567890123456789"),
+                decoded.userDataInDatabase.get("precise").getAsBigDecimal());
+    }
+
+    @Test
+    public void testThatTooDeeplyNestedPayloadsFallBackToAString() {
+        assertNotNull(JsonDocumentConverter.toDocument(nested(50)));
+        assertNull(JsonDocumentConverter.toDocument(nested(100)));
+
+        JsonArray deepArray = new JsonArray();
+        JsonArray current = deepArray;
+        for (int i = 0; i < 100; i++) {
+            JsonArray child = new JsonArray();
+            current.add(child);
+            current = child;
+        }
+        JsonObject withDeepArray = new JsonObject();
+        withDeepArray.add("array", deepArray);
+        assertNull(JsonDocumentConverter.toDocument(withDeepArray));
+    }
+
+    private static RawBsonDocument encode(SessionInfo sessionInfo, boolean storePayloadsAsDocuments) {
+        return new RawBsonDocument(sessionInfo, Codecs.createRegistry(
+                new SessionDocumentFormat(storePayloadsAsDocuments, false, false)).get(SessionInfo.class));
+    }
+
+    @Test
+    public void testThatPayloadsRoundTripInBothForms() {
+        JsonObject payload = parse("{\"int\": 1, \"long\": 12345678901, \"double\": 1.5, \"string\": \"s\", "
+                + "\"bool\": false, \"null\": null, \"array\": [1, [2, {\"a\": \"b\"}]], \"object\": {\"k\": {}}}");
+        // cannot be stored as a sub document, so it is always a string
+        JsonObject unsupported = parse("{\"$key\": {\"a.b\": 1}}");
+        SessionInfo sessionInfo = new SessionInfo("handle", "user", "user", "hash", payload, 100, unsupported, 10,
+                false);
+
+        RawBsonDocument asDocuments = encode(sessionInfo, true);
+        assertTrue(asDocuments.get("session_data").isDocument());
+        assertTrue(asDocuments.get("jwt_user_payload").isString());
+
+        RawBsonDocument asStrings = encode(sessionInfo, false);
+        assertTrue(asStrings.get("session_data").isString());
+        assertTrue(asStrings.get("jwt_user_payload").isString());
+
+        // documents written in either form are read back the same
+        for (RawBsonDocument document : new RawBsonDocument[]{asDocuments, asStrings}) {
+            SessionInfo decoded = Codecs.decodeSessionInfo(document);
+            assertEquals(payload, decoded.userDataInDatabase);
+            assertEquals(unsupported, decoded.userDataInJWT);
+            assertEquals("handle", decoded.sessionHandle);
+            assertEquals("hash", decoded.refreshTokenHash2);
+            assertEquals(100, decoded.expiry);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import io.supertokens.storage.mongodb.ResourceDistributor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ResourceDistributorTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    public static class TestResource extends ResourceDistributor.SingletonResource {
+    }
+
+    private static final ResourceDistributor.ResourceKey<TestResource> KEY =
+            new ResourceDistributor.ResourceKey<>(TestResource.class);
+
+    @Test
+    public void testThatConcurrentCallersGetTheSameInstance() throws Exception {
+        int threads = 32;
+        for (int round = 0; round < 20; round++) {
+            ResourceDistributor distributor = new ResourceDistributor();
+            AtomicInteger created = new AtomicInteger(0);
+            CountDownLatch allReady = new CountDownLatch(threads);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<TestResource>> results = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    results.add(executor.submit(() -> {
+                        allReady.countDown();
+                        allReady.await();
+                        return distributor.getOrCreateResource(KEY, () -> {
+                            created.incrementAndGet();
+                            return new TestResource();
+                        });
+                    }));
+                }
+
+                TestResource first = results.get(0).get();
+                assertNotNull(first);
+                for (Future<TestResource> result : results) {
+                    assertSame(first, result.get());
+                }
+                assertSame(first, distributor.getResource(KEY));
+                assertEquals(1, created.get());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    public void testThatSetResourceKeepsTheFirstInstance() {
+        ResourceDistributor distributor = new ResourceDistributor();
+        TestResource first = new TestResource();
+        TestResource second = new TestResource();
+
+        assertSame(first, distributor.setResource(KEY, first));
+        assertSame(first, distributor.setResource(KEY, second));
+        assertSame(first, distributor.getOrCreateResource(KEY, TestResource::new));
+
+        distributor.removeResource(KEY);
+        assertNull(distributor.getResource(KEY));
+    }
+}
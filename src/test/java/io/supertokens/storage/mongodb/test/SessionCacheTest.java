@@ -0,0 +1,158 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import com.google.gson.JsonObject;
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import io.supertokens.storage.mongodb.SessionCache;
+import io.supertokens.storage.mongodb.Start;
+import io.supertokens.storageLayer.StorageLayer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import static org.junit.Assert.*;
+
+public class SessionCacheTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static void createSession(Start start, String sessionHandle, String userId, long expiry)
+            throws Exception {
+        JsonObject data = new JsonObject();
+        data.addProperty("key", "value");
+        start.createNewSession(TenantIdentifier.BASE_TENANT, sessionHandle, userId, "hash", data, expiry, data,
+                System.currentTimeMillis(), false);
+    }
+
+    private static long inAnHour() {
+        return System.currentTimeMillis() + 3600000;
+    }
+
+    @Test
+    public void testThatHitsAndMissesAreCounted() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_session_cache_size", "100");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+        SessionCache cache = SessionCache.getInstance(start);
+
+        createSession(start, "handle", "user", inAnHour());
+
+        assertNotNull(start.getSession(TenantIdentifier.BASE_TENANT, "handle"));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        assertEquals("user", start.getSession(TenantIdentifier.BASE_TENANT, "handle").userId);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // sessions that do not exist are not cached
+        assertNull(start.getSession(TenantIdentifier.BASE_TENANT, "unknown"));
+        assertNull(start.getSession(TenantIdentifier.BASE_TENANT, "unknown"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatWritesInvalidateCachedSessions() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_session_cache_size", "100");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        createSession(start, "updated", "user1", inAnHour());
+        createSession(start, "refreshed", "user1", inAnHour());
+        createSession(start, "deleted", "user1", inAnHour());
+        createSession(start, "deletedWithUser", "user2", inAnHour());
+        for (String sessionHandle : new String[]{"updated", "refreshed", "deleted", "deletedWithUser"}) {
+            assertNotNull(start.getSession(TenantIdentifier.BASE_TENANT, sessionHandle));
+        }
+
+        JsonObject newData = new JsonObject();
+        newData.addProperty("key", "newValue");
+        assertEquals(1, start.updateSession(TenantIdentifier.BASE_TENANT, "updated", newData, null));
+        assertEquals(newData, start.getSession(TenantIdentifier.BASE_TENANT, "updated").userDataInDatabase);
+
+        String lastUpdatedSign = start.getSessionInfo_Transaction("refreshed").lastUpdatedSign;
+        assertTrue(start.updateSessionInfo_Transaction("refreshed", "newHash", inAnHour(), lastUpdatedSign, false));
+        assertEquals("newHash", start.getSession(TenantIdentifier.BASE_TENANT, "refreshed").refreshTokenHash2);
+
+        assertEquals(1, start.deleteSession(TenantIdentifier.BASE_TENANT, new String[]{"deleted"}));
+        assertNull(start.getSession(TenantIdentifier.BASE_TENANT, "deleted"));
+
+        assertTrue(start.deleteSessionsOfUser(TenantIdentifier.BASE_TENANT, "user2"));
+        assertNull(start.getSession(TenantIdentifier.BASE_TENANT, "deletedWithUser"));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatCachedSessionsDoNotOutliveTheirExpiry() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_session_cache_size", "100");
+        Utils.setValueInConfig("mongodb_session_cache_ttl_ms", "60000");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+        SessionCache cache = SessionCache.getInstance(start);
+
+        createSession(start, "handle", "user", System.currentTimeMillis() + 1000);
+
+        assertNotNull(start.getSession(TenantIdentifier.BASE_TENANT, "handle"));
+        assertNotNull(start.getSession(TenantIdentifier.BASE_TENANT, "handle"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        Thread.sleep(1500);
+
+        // well within the TTL of the cache, but past the session's own expiry
+        start.getSession(TenantIdentifier.BASE_TENANT, "handle");
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
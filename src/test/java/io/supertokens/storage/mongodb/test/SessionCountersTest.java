@@ -0,0 +1,156 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import com.google.gson.JsonObject;
+import com.mongodb.client.model.Filters;
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import io.supertokens.storage.mongodb.CollectionRegistry;
+import io.supertokens.storage.mongodb.Start;
+import io.supertokens.storageLayer.StorageLayer;
+import org.bson.Document;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import static org.junit.Assert.*;
+
+public class SessionCountersTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static void createSession(Start start, String sessionHandle, String userId, long expiry)
+            throws Exception {
+        start.createNewSession(TenantIdentifier.BASE_TENANT, sessionHandle, userId, "0a1b", new JsonObject(), expiry,
+                new JsonObject(), System.currentTimeMillis(), false);
+    }
+
+    private static long countSessions(Start start) {
+        return CollectionRegistry.getInstance(start).getSessions().countDocuments();
+    }
+
+    private static long countCounterDocuments(Start start) {
+        return CollectionRegistry.getInstance(start).getKeyValues()
+                .countDocuments(Filters.regex("_id", "^session_count_"));
+    }
+
+    @Test
+    public void testThatCountersFollowEveryCreateAndDelete() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_use_session_counters", "true");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 40; i++) {
+            createSession(start, "session" + i, "user" + (i % 4), i < 5 ? now - 1000 : now + 3600000);
+        }
+        assertEquals(40, start.getNumberOfSessions(TenantIdentifier.BASE_TENANT));
+        assertTrue(countCounterDocuments(start) > 1);
+
+        // a duplicate is not counted
+        try {
+            createSession(start, "session10", "user2", now + 3600000);
+            fail();
+        } catch (Exception ignored) {
+        }
+        assertEquals(40, start.getNumberOfSessions(TenantIdentifier.BASE_TENANT));
+
+        // session10 and one that does not exist
+        assertEquals(1, start.deleteSession(TenantIdentifier.BASE_TENANT, new String[]{"session10", "missing"}));
+        assertEquals(39, start.getNumberOfSessions(TenantIdentifier.BASE_TENANT));
+
+        start.deleteSessionsOfUser(TenantIdentifier.BASE_TENANT, "user3");
+        assertEquals(countSessions(start), start.getNumberOfSessions(TenantIdentifier.BASE_TENANT));
+
+        start.deleteAllExpiredSessions();
+        assertEquals(countSessions(start), start.getNumberOfSessions(TenantIdentifier.BASE_TENANT));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatTheExpiredSessionsCleanupReconcilesTheCounters() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_use_session_counters", "true");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            createSession(start, "session" + i, "user", now + 3600000);
+        }
+        // written and deleted without going through the plugin
+        CollectionRegistry.getInstance(start).getSessions().deleteOne(Filters.eq("_id", "session0"));
+        CollectionRegistry.getInstance(start).getSessions().insertOne(new Document("_id", "outside")
+                .append("user_id", "user").append("expires_at", now + 3600000));
+        CollectionRegistry.getInstance(start).getSessions().insertOne(new Document("_id", "outside2")
+                .append("user_id", "user").append("expires_at", now + 3600000));
+        assertEquals(5, start.getNumberOfSessions(TenantIdentifier.BASE_TENANT));
+
+        start.deleteAllExpiredSessions();
+        assertEquals(6, start.getNumberOfSessions(TenantIdentifier.BASE_TENANT));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatSessionsAreCountedInTheTTLExpiryMode() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_use_session_counters", "true");
+        Utils.setValueInConfig("mongodb_use_ttl_index_for_session_expiry", "true");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        createSession(start, "session", "user", System.currentTimeMillis() + 3600000);
+        // like the TTL monitor does
+        CollectionRegistry.getInstance(start).getSessions().insertOne(new Document("_id", "outside")
+                .append("user_id", "user").append("expires_at", System.currentTimeMillis() + 3600000));
+
+        assertEquals(2, start.getNumberOfSessions(TenantIdentifier.BASE_TENANT));
+        assertEquals(0, countCounterDocuments(start));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
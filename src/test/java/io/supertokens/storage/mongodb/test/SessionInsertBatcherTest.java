@@ -0,0 +1,267 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import com.google.gson.JsonObject;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteConcernError;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import io.supertokens.pluginInterface.session.noSqlStorage.SessionInfoWithLastUpdated;
+import io.supertokens.storage.mongodb.ConnectionPoolTestContent;
+import io.supertokens.storage.mongodb.SessionInsertBatcher;
+import io.supertokens.storage.mongodb.Start;
+import io.supertokens.storageLayer.StorageLayer;
+import org.bson.BsonDocument;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class SessionInsertBatcherTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static void createSession(Start start, String sessionHandle) throws StorageQueryException {
+        start.createNewSession(TenantIdentifier.BASE_TENANT, sessionHandle, "user", "hash", new JsonObject(),
+                System.currentTimeMillis() + 3600000, new JsonObject(), System.currentTimeMillis(), false);
+    }
+
+    // creates all the given sessions at the same time, and returns a future for each of them
+    private static Map<String, Future<Void>> createConcurrently(ExecutorService executor, Start start,
+                                                                String... sessionHandles) {
+        CountDownLatch allReady = new CountDownLatch(sessionHandles.length);
+        Map<String, Future<Void>> results = new HashMap<>();
+        for (String sessionHandle : sessionHandles) {
+            results.put(sessionHandle, executor.submit(() -> {
+                allReady.countDown();
+                allReady.await();
+                createSession(start, sessionHandle);
+                return null;
+            }));
+        }
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<SessionInfoWithLastUpdated> mockCollection(Start start) {
+        MongoCollection<SessionInfoWithLastUpdated> collection = mock(MongoCollection.class);
+        ConnectionPoolTestContent.getInstance(start)
+                .setKeyValue(ConnectionPoolTestContent.SESSION_INSERT_BATCHER_COLLECTION, collection);
+        return collection;
+    }
+
+    private static BulkWriteResult nothingInserted() {
+        return BulkWriteResult.acknowledged(0, 0, 0, 0, Collections.emptyList());
+    }
+
+    @Test
+    public void testThatADuplicateSessionHandleOnlyFailsItsOwnCaller() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_session_create_batch_size", "3");
+        Utils.setValueInConfig("mongodb_session_create_linger_ms", "2000");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        createSession(start, "existing");
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        Map<String, Future<Void>> results = createConcurrently(executor, start, "new1", "existing", "new2");
+        results.get("new1").get();
+        results.get("new2").get();
+        try {
+            results.get("existing").get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof StorageQueryException);
+        }
+        executor.shutdown();
+
+        assertNotNull(start.getSession(TenantIdentifier.BASE_TENANT, "new1"));
+        assertNotNull(start.getSession(TenantIdentifier.BASE_TENANT, "new2"));
+        assertEquals(3, SessionInsertBatcher.getInstanceIfExists(start).getInsertedDocumentCount());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatWriteErrorsAreMappedToTheirCallersByIndex() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_session_create_batch_size", "4");
+        Utils.setValueInConfig("mongodb_session_create_linger_ms", "5000");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        // fails the sessions whose handle starts with "fail", wherever they are in the batch
+        MongoCollection<SessionInfoWithLastUpdated> collection = mockCollection(start);
+        doAnswer(invocation -> {
+            List<SessionInfoWithLastUpdated> sessions = invocation.getArgument(0);
+            assertEquals(4, sessions.size());
+            List<BulkWriteError> errors = new ArrayList<>();
+            for (int i = 0; i < sessions.size(); i++) {
+                if (sessions.get(i).sessionHandle.startsWith("fail")) {
+                    errors.add(new BulkWriteError(11000, "duplicate key error", new BsonDocument(), i));
+                }
+            }
+            throw new MongoBulkWriteException(nothingInserted(), errors, null, new ServerAddress());
+        }).when(collection).insertMany(anyList(), any(InsertManyOptions.class));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Map<String, Future<Void>> results = createConcurrently(executor, start, "ok1", "fail1", "ok2", "fail2");
+        for (Map.Entry<String, Future<Void>> result : results.entrySet()) {
+            if (result.getKey().startsWith("ok")) {
+                result.getValue().get();
+            } else {
+                try {
+                    result.getValue().get();
+                    fail();
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof StorageQueryException);
+                }
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(2, SessionInsertBatcher.getInstanceIfExists(start).getInsertedDocumentCount());
+        assertEquals(1, SessionInsertBatcher.getInstanceIfExists(start).getBatchesWrittenCount());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatAWriteConcernErrorFailsTheWholeBatch() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_session_create_batch_size", "3");
+        Utils.setValueInConfig("mongodb_session_create_linger_ms", "5000");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        // the documents may have been written, but we cannot tell that any of them is durable
+        MongoCollection<SessionInfoWithLastUpdated> collection = mockCollection(start);
+        doAnswer(invocation -> {
+            throw new MongoBulkWriteException(nothingInserted(), Collections.emptyList(),
+                    new WriteConcernError(64, "WriteConcernFailed", "waiting for replication timed out",
+                            new BsonDocument()), new ServerAddress());
+        }).when(collection).insertMany(anyList(), any(InsertManyOptions.class));
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        Map<String, Future<Void>> results = createConcurrently(executor, start, "handle1", "handle2", "handle3");
+        for (Future<Void> result : results.values()) {
+            try {
+                result.get();
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof StorageQueryException);
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(0, SessionInsertBatcher.getInstanceIfExists(start).getInsertedDocumentCount());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatQueuedSessionsAreWrittenOnClose() throws Exception {
+        String[] args = {"../"};
+
+        // the batch is never full, and the linger time is far longer than the test
+        Utils.setValueInConfig("mongodb_session_create_batch_size", "100");
+        Utils.setValueInConfig("mongodb_session_create_linger_ms", "60000");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        List<String> inserted = new CopyOnWriteArrayList<>();
+        MongoCollection<SessionInfoWithLastUpdated> collection = mockCollection(start);
+        doAnswer(invocation -> {
+            List<SessionInfoWithLastUpdated> sessions = invocation.getArgument(0);
+            for (SessionInfoWithLastUpdated session : sessions) {
+                inserted.add(session.sessionHandle);
+            }
+            return null;
+        }).when(collection).insertMany(anyList(), any(InsertManyOptions.class));
+
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        Map<String, Future<Void>> results = createConcurrently(executor, start, "handle1", "handle2", "handle3",
+                "handle4", "handle5");
+        Thread.sleep(1000);
+        assertTrue(inserted.isEmpty());
+
+        process.kill();
+        for (Future<Void> result : results.values()) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(5, inserted.size());
+        assertEquals(5, SessionInsertBatcher.getInstanceIfExists(start).getInsertedDocumentCount());
+
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import com.google.gson.JsonObject;
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import io.supertokens.storage.mongodb.SessionUpdateCoalescer;
+import io.supertokens.storage.mongodb.Start;
+import io.supertokens.storageLayer.StorageLayer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SessionUpdateCoalescerTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static JsonObject data(String value) {
+        JsonObject data = new JsonObject();
+        data.addProperty("key", value);
+        return data;
+    }
+
+    private static void createSession(Start start, String sessionHandle) throws Exception {
+        start.createNewSession(TenantIdentifier.BASE_TENANT, sessionHandle, "user", "hash", data("initial"),
+                System.currentTimeMillis() + 3600000, new JsonObject(), System.currentTimeMillis(), false);
+    }
+
+    // runs the given number of updates of the same session at the same time, and returns their results
+    private static List<Future<Integer>> updateConcurrently(ExecutorService executor, Start start,
+                                                            String sessionHandle, int count) {
+        CountDownLatch allReady = new CountDownLatch(count);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            JsonObject sessionData = data("value" + i);
+            results.add(executor.submit(() -> {
+                allReady.countDown();
+                allReady.await();
+                return start.updateSession(TenantIdentifier.BASE_TENANT, sessionHandle, sessionData, null);
+            }));
+        }
+        return results;
+    }
+
+    @Test
+    public void testThatAnUpdateWithNothingInFlightIsWrittenRightAway() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_session_update_coalescing_window_ms", "5000");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        createSession(start, "handle");
+
+        for (int i = 0; i < 3; i++) {
+            long startTime = System.currentTimeMillis();
+            assertEquals(1, start.updateSession(TenantIdentifier.BASE_TENANT, "handle", data("value" + i), null));
+            assertTrue(System.currentTimeMillis() - startTime < 2000);
+
+            // read your writes: the update is in the database once updateSession returns
+            assertEquals(data("value" + i), start.getSession(TenantIdentifier.BASE_TENANT, "handle")
+                    .userDataInDatabase);
+        }
+        assertEquals(3, SessionUpdateCoalescer.getInstanceIfExists(start).getWrittenUpdateCount());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatConcurrentUpdatesAreMerged() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_session_update_coalescing_window_ms", "500");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        createSession(start, "handle");
+
+        int count = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        List<Future<Integer>> results = updateConcurrently(executor, start, "handle", count);
+        for (Future<Integer> result : results) {
+            // every caller gets the result of the write that its update was part of
+            assertEquals(1, (int) result.get());
+        }
+        executor.shutdown();
+
+        SessionUpdateCoalescer coalescer = SessionUpdateCoalescer.getInstanceIfExists(start);
+        assertEquals(count, coalescer.getRequestedUpdateCount());
+        assertTrue(coalescer.getWrittenUpdateCount() < count);
+
+        JsonObject stored = start.getSession(TenantIdentifier.BASE_TENANT, "handle").userDataInDatabase;
+        assertTrue(stored.get("key").getAsString().startsWith("value"));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatEveryCallerGetsTheModifiedCountOfItsWrite() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_session_update_coalescing_window_ms", "500");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        int count = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        for (Future<Integer> result : updateConcurrently(executor, start, "doesNotExist", count)) {
+            assertEquals(0, (int) result.get());
+        }
+        executor.shutdown();
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatPendingUpdatesAreWrittenOnClose() throws Exception {
+        String[] args = {"../"};
+
+        // long enough that the pending update would only be written by close
+        Utils.setValueInConfig("mongodb_session_update_coalescing_window_ms", "20000");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        createSession(start, "handle");
+
+        int count = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        List<Future<Integer>> results = updateConcurrently(executor, start, "handle", count);
+        Thread.sleep(1000);
+
+        long closedAt = System.currentTimeMillis();
+        process.kill();
+        for (Future<Integer> result : results) {
+            assertEquals(1, (int) result.get(10, TimeUnit.SECONDS));
+        }
+        assertTrue(System.currentTimeMillis() - closedAt < 10000);
+        executor.shutdown();
+
+        SessionUpdateCoalescer coalescer = SessionUpdateCoalescer.getInstanceIfExists(start);
+        assertEquals(count, coalescer.getRequestedUpdateCount());
+        assertTrue(coalescer.getWrittenUpdateCount() < count);
+
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
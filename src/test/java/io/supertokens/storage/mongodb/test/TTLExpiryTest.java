@@ -0,0 +1,178 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import com.google.gson.JsonObject;
+import com.mongodb.client.model.Filters;
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import io.supertokens.pluginInterface.session.noSqlStorage.SessionInfoWithLastUpdated;
+import io.supertokens.storage.mongodb.CollectionRegistry;
+import io.supertokens.storage.mongodb.Start;
+import io.supertokens.storageLayer.StorageLayer;
+import org.bson.Document;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class TTLExpiryTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static Document readSession(Start start, String sessionHandle) {
+        return CollectionRegistry.getInstance(start).getSessions().find(Filters.eq("_id", sessionHandle)).first();
+    }
+
+    private static Document session(String sessionHandle, long expiry) {
+        return new Document("_id", sessionHandle).append("user_id", "user").append("refresh_token_hash_2", "0a1b")
+                .append("session_data", "{}").append("expires_at", expiry).append("jwt_user_payload", "{}")
+                .append("created_at_time", System.currentTimeMillis()).append("last_updated_sign", "sign")
+                .append("use_static_key", false);
+    }
+
+    @Test
+    public void testThatExpiryIsWrittenAsADateOnCreateAndRefresh() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_use_ttl_index_for_session_expiry", "true");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        long expiry = System.currentTimeMillis() + 3600000;
+        start.createNewSession(TenantIdentifier.BASE_TENANT, "handle", "user", "0a1b", new JsonObject(), expiry,
+                new JsonObject(), System.currentTimeMillis(), false);
+        Document stored = readSession(start, "handle");
+        assertEquals(expiry, (long) stored.getLong("expires_at"));
+        assertEquals(new Date(expiry), stored.getDate("expires_at_date"));
+
+        SessionInfoWithLastUpdated session = start.getSessionInfo_Transaction("handle");
+        long newExpiry = expiry + 3600000;
+        assertTrue(start.updateSessionInfo_Transaction("handle", "2c3d", newExpiry, session.lastUpdatedSign, false));
+        stored = readSession(start, "handle");
+        assertEquals(newExpiry, (long) stored.getLong("expires_at"));
+        assertEquals(new Date(newExpiry), stored.getDate("expires_at_date"));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatTheCleanupOnlyDeletesSessionsWithoutADate() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_use_ttl_index_for_session_expiry", "true");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        long expired = System.currentTimeMillis() - 1000;
+        // created before the TTL mode was turned on, so only the cleanup can delete it
+        CollectionRegistry.getInstance(start).getSessions().insertOne(session("withoutDate", expired));
+        // left to the TTL monitor. The date is in the future, so that the monitor does not delete it during the test.
+        CollectionRegistry.getInstance(start).getSessions().insertOne(session("withDate", expired)
+                .append("expires_at_date", new Date(System.currentTimeMillis() + 3600000)));
+
+        start.deleteAllExpiredSessions();
+
+        assertNull(readSession(start, "withoutDate"));
+        assertNotNull(readSession(start, "withDate"));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatExpiredSessionsAreNotReadBeforeTheyAreDeleted() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_use_ttl_index_for_session_expiry", "true");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        long now = System.currentTimeMillis();
+        // expired, but not deleted by the TTL monitor yet
+        CollectionRegistry.getInstance(start).getSessions().insertOne(session("expired", now - 1000)
+                .append("expires_at_date", new Date(now + 3600000)));
+        start.createNewSession(TenantIdentifier.BASE_TENANT, "alive", "user", "0a1b", new JsonObject(),
+                now + 3600000, new JsonObject(), now, false);
+
+        assertEquals(Arrays.asList("alive"),
+                Arrays.asList(start.getAllNonExpiredSessionHandlesForUser(TenantIdentifier.BASE_TENANT, "user")));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatTurningTheTTLModeOffRemovesTheDateOnRefresh() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_use_ttl_index_for_session_expiry", "true");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        long expiry = System.currentTimeMillis() + 3600000;
+        start.createNewSession(TenantIdentifier.BASE_TENANT, "handle", "user", "0a1b", new JsonObject(), expiry,
+                new JsonObject(), System.currentTimeMillis(), false);
+        assertNotNull(readSession(start, "handle").getDate("expires_at_date"));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+
+        Utils.setValueInConfig("mongodb_use_ttl_index_for_session_expiry", "false");
+
+        process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        SessionInfoWithLastUpdated session = start.getSessionInfo_Transaction("handle");
+        assertTrue(start.updateSessionInfo_Transaction("handle", "2c3d", expiry + 3600000, session.lastUpdatedSign,
+                false));
+        Document stored = readSession(start, "handle");
+        assertFalse(stored.containsKey("expires_at_date"));
+        assertEquals(expiry + 3600000, (long) stored.getLong("expires_at"));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ *    Copyright (c) 2026, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ *
+ */
+
+package io.supertokens.storage.mongodb.test;
+
+import com.google.gson.JsonObject;
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.multitenancy.TenantIdentifier;
+import io.supertokens.pluginInterface.session.noSqlStorage.SessionInfoWithLastUpdated;
+import io.supertokens.storage.mongodb.SessionCache;
+import io.supertokens.storage.mongodb.SessionRefreshStats;
+import io.supertokens.storage.mongodb.Start;
+import io.supertokens.storageLayer.StorageLayer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import static org.junit.Assert.*;
+
+public class UpdateSessionInfoAndGetTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    @Test
+    public void testThatTheUpdatedSessionIsReturned() throws Exception {
+        String[] args = {"../"};
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+
+        JsonObject sessionData = new JsonObject();
+        sessionData.addProperty("key", "value");
+        long now = System.currentTimeMillis();
+        start.createNewSession(TenantIdentifier.BASE_TENANT, "handle", "user", "0a1b", sessionData, now + 3600000,
+                new JsonObject(), now, false);
+        SessionInfoWithLastUpdated before = start.getSessionInfo_Transaction("handle");
+
+        SessionInfoWithLastUpdated after = start.updateSessionInfoAndGet_Transaction("handle", "2c3d", now + 7200000,
+                before.lastUpdatedSign, true);
+
+        assertNotNull(after);
+        assertEquals("handle", after.sessionHandle);
+        assertEquals("user", after.userId);
+        assertEquals("2c3d", after.refreshTokenHash2);
+        assertEquals(now + 7200000, after.expiry);
+        assertTrue(after.useStaticKey);
+        assertEquals(sessionData, after.userDataInDatabase);
+        assertEquals(now, after.timeCreated);
+        assertNotEquals(before.lastUpdatedSign, after.lastUpdatedSign);
+
+        // the post image is what is stored now
+        SessionInfoWithLastUpdated stored = start.getSessionInfo_Transaction("handle");
+        assertEquals(stored.lastUpdatedSign, after.lastUpdatedSign);
+        assertEquals(stored.refreshTokenHash2, after.refreshTokenHash2);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatAStaleSignOrAMissingSessionReturnsNull() throws Exception {
+        String[] args = {"../"};
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+        SessionRefreshStats stats = SessionRefreshStats.getInstance(start);
+        long successfulBefore = stats.getSuccessfulUpdateCount();
+        long failedBefore = stats.getFailedUpdateCount();
+
+        long now = System.currentTimeMillis();
+        start.createNewSession(TenantIdentifier.BASE_TENANT, "handle", "user", "0a1b", new JsonObject(),
+                now + 3600000, new JsonObject(), now, false);
+        SessionInfoWithLastUpdated before = start.getSessionInfo_Transaction("handle");
+
+        assertNotNull(start.updateSessionInfoAndGet_Transaction("handle", "2c3d", now + 3600000,
+                before.lastUpdatedSign, false));
+        // the sign changed with the update above, so this one lost the race
+        assertNull(start.updateSessionInfoAndGet_Transaction("handle", "4e5f", now + 3600000,
+                before.lastUpdatedSign, false));
+        assertNull(start.updateSessionInfoAndGet_Transaction("missing", "4e5f", now + 3600000,
+                before.lastUpdatedSign, false));
+
+        // the failed updates did not change anything
+        assertEquals("2c3d", start.getSessionInfo_Transaction("handle").refreshTokenHash2);
+
+        assertEquals(1, stats.getSuccessfulUpdateCount() - successfulBefore);
+        assertEquals(2, stats.getFailedUpdateCount() - failedBefore);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatTheUpdateInvalidatesTheCachedSession() throws Exception {
+        String[] args = {"../"};
+
+        Utils.setValueInConfig("mongodb_session_cache_size", "100");
+        Utils.setValueInConfig("mongodb_session_cache_ttl_ms", "60000");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Start start = (Start) StorageLayer.getStorage(process.getProcess());
+        SessionCache cache = SessionCache.getInstance(start);
+
+        long now = System.currentTimeMillis();
+        start.createNewSession(TenantIdentifier.BASE_TENANT, "handle", "user", "0a1b", new JsonObject(),
+                now + 3600000, new JsonObject(), now, false);
+        assertEquals("0a1b", start.getSession(TenantIdentifier.BASE_TENANT, "handle").refreshTokenHash2);
+        long hitsBefore = cache.getHitCount();
+        assertEquals("0a1b", start.getSession(TenantIdentifier.BASE_TENANT, "handle").refreshTokenHash2);
+        assertEquals(hitsBefore + 1, cache.getHitCount());
+
+        SessionInfoWithLastUpdated before = start.getSessionInfo_Transaction("handle");
+        assertNotNull(start.updateSessionInfoAndGet_Transaction("handle", "2c3d", now + 3600000,
+                before.lastUpdatedSign, false));
+
+        long missesBefore = cache.getMissCount();
+        assertEquals("2c3d", start.getSession(TenantIdentifier.BASE_TENANT, "handle").refreshTokenHash2);
+        assertEquals(missesBefore + 1, cache.getMissCount());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}